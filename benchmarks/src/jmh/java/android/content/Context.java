@@ -0,0 +1,37 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package android.content;
+
+import android.os.Handler;
+import java.io.File;
+
+/**
+ * JVM stub of the Android class, which contains only methods used by the library
+ */
+public abstract class Context {
+  public static final String WIFI_SERVICE = "wifi";
+
+  public abstract Context getApplicationContext();
+
+  public abstract Object getSystemService(String name);
+
+  public abstract File getCacheDir();
+
+  public abstract Intent registerReceiver(BroadcastReceiver receiver, IntentFilter filter,
+      String broadcastPermission, Handler scheduler);
+
+  public abstract void unregisterReceiver(BroadcastReceiver receiver);
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package android.content;
+
+import android.os.Parcelable;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * JVM stub of the Android class, which keeps extras in a map
+ */
+public class Intent {
+  private final String action;
+  private final Map<String, Object> extras = new HashMap<>();
+
+  public Intent(final String action) {
+    this.action = action;
+  }
+
+  public String getAction() {
+    return action;
+  }
+
+  public Intent putExtra(final String name, final int value) {
+    extras.put(name, value);
+    return this;
+  }
+
+  public Intent putExtra(final String name, final boolean value) {
+    extras.put(name, value);
+    return this;
+  }
+
+  public Intent putExtra(final String name, final Parcelable value) {
+    extras.put(name, value);
+    return this;
+  }
+
+  public int getIntExtra(final String name, final int defaultValue) {
+    final Object value = extras.get(name);
+    return value instanceof Integer ? (Integer) value : defaultValue;
+  }
+
+  public boolean getBooleanExtra(final String name, final boolean defaultValue) {
+    final Object value = extras.get(name);
+    return value instanceof Boolean ? (Boolean) value : defaultValue;
+  }
+
+  @SuppressWarnings("unchecked") public <T extends Parcelable> T getParcelableExtra(
+      final String name) {
+    return (T) extras.get(name);
+  }
+}
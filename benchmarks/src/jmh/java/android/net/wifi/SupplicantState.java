@@ -0,0 +1,41 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package android.net.wifi;
+
+import android.os.Parcelable;
+
+/**
+ * JVM stub of the Android enum
+ */
+public enum SupplicantState implements Parcelable {
+  DISCONNECTED,
+  INTERFACE_DISABLED,
+  INACTIVE,
+  SCANNING,
+  AUTHENTICATING,
+  ASSOCIATING,
+  ASSOCIATED,
+  FOUR_WAY_HANDSHAKE,
+  GROUP_HANDSHAKE,
+  COMPLETED,
+  DORMANT,
+  UNINITIALIZED,
+  INVALID;
+
+  public static boolean isValidState(final SupplicantState state) {
+    return state != UNINITIALIZED && state != INVALID;
+  }
+}
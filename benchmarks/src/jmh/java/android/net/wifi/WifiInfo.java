@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package android.net.wifi;
+
+/**
+ * JVM stub of the Android class with values set by benchmarks
+ */
+public class WifiInfo {
+  private final String bssid;
+  private final String ssid;
+  private final int rssi;
+  private final int frequency;
+  private final SupplicantState supplicantState;
+
+  public WifiInfo(final String bssid, final int rssi, final int frequency,
+      final SupplicantState supplicantState) {
+    this(bssid, "<unknown ssid>", rssi, frequency, supplicantState);
+  }
+
+  public WifiInfo(final String bssid, final String ssid, final int rssi, final int frequency,
+      final SupplicantState supplicantState) {
+    this.bssid = bssid;
+    this.ssid = ssid;
+    this.rssi = rssi;
+    this.frequency = frequency;
+    this.supplicantState = supplicantState;
+  }
+
+  public String getBSSID() {
+    return bssid;
+  }
+
+  public String getSSID() {
+    return ssid;
+  }
+
+  public int getRssi() {
+    return rssi;
+  }
+
+  public int getFrequency() {
+    return frequency;
+  }
+
+  public SupplicantState getSupplicantState() {
+    return supplicantState;
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package android.net.wifi;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * JVM stub of the Android class. Benchmarks override methods returning WiFi state.
+ */
+public class WifiManager {
+  public static final String RSSI_CHANGED_ACTION = "android.net.wifi.RSSI_CHANGED";
+  public static final String SCAN_RESULTS_AVAILABLE_ACTION = "android.net.wifi.SCAN_RESULTS";
+  public static final String SUPPLICANT_STATE_CHANGED_ACTION =
+      "android.net.wifi.supplicant.STATE_CHANGE";
+  public static final String NETWORK_STATE_CHANGED_ACTION = "android.net.wifi.STATE_CHANGE";
+  public static final String WIFI_STATE_CHANGED_ACTION = "android.net.wifi.WIFI_STATE_CHANGED";
+  public static final String EXTRA_NEW_RSSI = "newRssi";
+  public static final String EXTRA_NEW_STATE = "newState";
+  public static final String EXTRA_RESULTS_UPDATED = "resultsUpdated";
+  public static final String EXTRA_SUPPLICANT_ERROR = "supplicantError";
+  public static final String EXTRA_WIFI_STATE = "wifi_state";
+  public static final int WIFI_STATE_DISABLING = 0;
+  public static final int WIFI_STATE_DISABLED = 1;
+  public static final int WIFI_STATE_ENABLING = 2;
+  public static final int WIFI_STATE_ENABLED = 3;
+  public static final int WIFI_STATE_UNKNOWN = 4;
+  public static final int ERROR_AUTHENTICATING = 1;
+
+  private static final int MIN_RSSI = -100;
+  private static final int MAX_RSSI = -55;
+
+  public static int calculateSignalLevel(final int rssi, final int numLevels) {
+    if (rssi <= MIN_RSSI) {
+      return 0;
+    } else if (rssi >= MAX_RSSI) {
+      return numLevels - 1;
+    } else {
+      final float inputRange = MAX_RSSI - MIN_RSSI;
+      final float outputRange = numLevels - 1;
+      return (int) ((float) (rssi - MIN_RSSI) * outputRange / inputRange);
+    }
+  }
+
+  public List<ScanResult> getScanResults() {
+    return Collections.emptyList();
+  }
+
+  public WifiInfo getConnectionInfo() {
+    return new WifiInfo(null, MIN_RSSI, 0, SupplicantState.DISCONNECTED);
+  }
+
+  public int getWifiState() {
+    return WIFI_STATE_UNKNOWN;
+  }
+
+  public boolean startScan() {
+    return true;
+  }
+}
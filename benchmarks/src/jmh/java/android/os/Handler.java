@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package android.os;
+
+/**
+ * JVM stub of the Android class, which enqueues posted runnables into the stubbed Looper.
+ * Runnables posted with a delay wait for the next frame of the Looper, whatever the delay is.
+ */
+public class Handler {
+  private final Looper looper;
+
+  public Handler() {
+    this(Looper.myLooper());
+  }
+
+  public Handler(final Looper looper) {
+    this.looper = looper;
+  }
+
+  public final Looper getLooper() {
+    return looper;
+  }
+
+  public final boolean post(final Runnable runnable) {
+    looper.enqueue(runnable);
+    return true;
+  }
+
+  public final boolean postDelayed(final Runnable runnable, final long delayMillis) {
+    if (delayMillis > 0) {
+      looper.enqueueDelayed(runnable);
+    } else {
+      looper.enqueue(runnable);
+    }
+    return true;
+  }
+
+  public final void removeCallbacks(final Runnable runnable) {
+    looper.remove(runnable);
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package android.os;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+ * JVM stub of the Android class. There is a single looper, which keeps posted messages
+ * until benchmark runs them on its own thread with loopOnce(), e.g. once per simulated frame.
+ * Delayed messages are run by the next loopOnce() after they were posted.
+ * It's not thread-safe, so benchmarks using it have to run in a single thread.
+ */
+public final class Looper {
+  private static final Looper MAIN_LOOPER = new Looper();
+  private final Queue<Runnable> messages = new ArrayDeque<>();
+  private final Queue<Runnable> delayedMessages = new ArrayDeque<>();
+
+  private Looper() {
+  }
+
+  public static Looper getMainLooper() {
+    return MAIN_LOOPER;
+  }
+
+  public static Looper myLooper() {
+    return MAIN_LOOPER;
+  }
+
+  /**
+   * Runs messages posted so far and messages posted by them without delay.
+   * It's not a part of Android API.
+   */
+  public void loopOnce() {
+    messages.addAll(delayedMessages);
+    delayedMessages.clear();
+    Runnable message;
+    while ((message = messages.poll()) != null) {
+      message.run();
+    }
+  }
+
+  void enqueue(final Runnable message) {
+    messages.add(message);
+  }
+
+  void enqueueDelayed(final Runnable message) {
+    delayedMessages.add(message);
+  }
+
+  void remove(final Runnable message) {
+    while (messages.remove(message) | delayedMessages.remove(message)) {
+      // removes all occurrences
+    }
+  }
+}
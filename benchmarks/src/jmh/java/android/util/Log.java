@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package android.util;
+
+/**
+ * JVM stub of the Android class, which drops all messages
+ */
+public final class Log {
+
+  private Log() {
+  }
+
+  public static int d(final String tag, final String message) {
+    return 0;
+  }
+
+  public static int w(final String tag, final String message) {
+    return 0;
+  }
+
+  public static int w(final String tag, final String message, final Throwable throwable) {
+    return 0;
+  }
+
+  public static int e(final String tag, final String message) {
+    return 0;
+  }
+
+  public static int e(final String tag, final String message, final Throwable throwable) {
+    return 0;
+  }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivewifi;
+
+import io.reactivex.ObservableEmitter;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.functions.Cancellable;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * BlackholeEmitter passes emitted values to JMH Blackhole,
+ * so receivers can be benchmarked without RxJava subscribers
+ */
+final class BlackholeEmitter<T> implements ObservableEmitter<T> {
+  private final Blackhole blackhole;
+
+  BlackholeEmitter(final Blackhole blackhole) {
+    this.blackhole = blackhole;
+  }
+
+  @Override public void onNext(final T value) {
+    blackhole.consume(value);
+  }
+
+  @Override public void onError(final Throwable error) {
+    throw new IllegalStateException(error);
+  }
+
+  @Override public void onComplete() {
+  }
+
+  @Override public void setDisposable(final Disposable disposable) {
+  }
+
+  @Override public void setCancellable(final Cancellable cancellable) {
+  }
+
+  @Override public boolean isDisposed() {
+    return false;
+  }
+
+  @Override public ObservableEmitter<T> serialize() {
+    return this;
+  }
+
+  @Override public boolean tryOnError(final Throwable error) {
+    onError(error);
+    return true;
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivewifi;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.Handler;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * FakeContext provides FakeWifiManager and delivers broadcasts to registered receivers
+ */
+final class FakeContext extends Context {
+  final FakeWifiManager wifiManager = new FakeWifiManager();
+  private final Map<String, List<BroadcastReceiver>> receivers = new HashMap<>();
+
+  @Override public Context getApplicationContext() {
+    return this;
+  }
+
+  @Override public Object getSystemService(final String name) {
+    return WIFI_SERVICE.equals(name) ? wifiManager : null;
+  }
+
+  @Override public File getCacheDir() {
+    return new File(System.getProperty("java.io.tmpdir"));
+  }
+
+  @Override public Intent registerReceiver(final BroadcastReceiver receiver,
+      final IntentFilter filter, final String broadcastPermission, final Handler scheduler) {
+    List<BroadcastReceiver> actionReceivers = receivers.get(filter.getAction(0));
+    if (actionReceivers == null) {
+      actionReceivers = new ArrayList<>();
+      receivers.put(filter.getAction(0), actionReceivers);
+    }
+    actionReceivers.add(receiver);
+    return null;
+  }
+
+  @Override public void unregisterReceiver(final BroadcastReceiver receiver) {
+    for (List<BroadcastReceiver> actionReceivers : receivers.values()) {
+      actionReceivers.remove(receiver);
+    }
+  }
+
+  /**
+   * Delivers intent to receivers registered for its action on the calling thread
+   *
+   * @param intent to be delivered
+   */
+  void sendBroadcast(final Intent intent) {
+    final List<BroadcastReceiver> actionReceivers = receivers.get(intent.getAction());
+    if (actionReceivers != null) {
+      for (BroadcastReceiver receiver : actionReceivers) {
+        receiver.onReceive(this, intent);
+      }
+    }
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivewifi;
+
+import android.net.wifi.ScanResult;
+import android.net.wifi.SupplicantState;
+import android.net.wifi.WifiInfo;
+import android.net.wifi.WifiManager;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * FakeWifiManager returns WiFi state set by benchmarks
+ */
+final class FakeWifiManager extends WifiManager {
+  List<ScanResult> scanResults = Collections.emptyList();
+  WifiInfo connectionInfo =
+      new WifiInfo("00:11:22:33:44:55", -60, 2412, SupplicantState.COMPLETED);
+  int wifiState = WIFI_STATE_ENABLED;
+
+  @Override public List<ScanResult> getScanResults() {
+    return scanResults;
+  }
+
+  @Override public WifiInfo getConnectionInfo() {
+    return connectionInfo;
+  }
+
+  @Override public int getWifiState() {
+    return wifiState;
+  }
+
+  /**
+   * Creates scan results from the snapshot, e.g. from the replayed WiFi trace
+   *
+   * @param scan snapshot of scan results
+   * @return list of scan results
+   */
+  static List<ScanResult> createScanResults(final WifiScanSnapshot scan) {
+    final List<ScanResult> scanResults = new ArrayList<>(scan.size());
+    for (int i = 0; i < scan.size(); i++) {
+      final ScanResult scanResult = new ScanResult();
+      scanResult.BSSID = WifiScanSnapshot.unpackBssid(scan.getBssid(i));
+      scanResult.SSID = scan.getSsid(i);
+      scanResult.level = scan.getRssi(i);
+      scanResult.frequency = scan.getFrequency(i);
+      scanResult.timestamp = scan.getTimestamp(i);
+      scanResults.add(scanResult);
+    }
+    return scanResults;
+  }
+
+  /**
+   * Creates scan results of given size with deterministic values
+   *
+   * @param size number of Access Points
+   * @param timestamp of the scan in microseconds
+   * @return list of scan results
+   */
+  static List<ScanResult> createScanResults(final int size, final long timestamp) {
+    final List<ScanResult> scanResults = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      final ScanResult scanResult = new ScanResult();
+      scanResult.BSSID = String.format("02:00:00:00:%02x:%02x", i >> 8 & 0xff, i & 0xff);
+      scanResult.SSID = "network-" + (i % 16);
+      scanResult.capabilities = "[WPA2-PSK-CCMP][ESS]";
+      scanResult.level = -40 - (i % 50);
+      scanResult.frequency = i % 2 == 0 ? 2412 : 5180;
+      scanResult.timestamp = timestamp + i;
+      scanResults.add(scanResult);
+    }
+    return scanResults;
+  }
+}
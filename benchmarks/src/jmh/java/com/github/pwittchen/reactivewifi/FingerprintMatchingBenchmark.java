@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivewifi;
+
+import java.util.Random;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures matching of WiFi scans with fingerprints of a building. Each reference point
+ * sees 10-30 of 60 Access Points near it, so posting lists of the inverted index are long.
+ * Scans are fingerprints of random reference points with noise added to RSSI.
+ */
+@State(Scope.Thread) public class FingerprintMatchingBenchmark {
+  private static final int ACCESS_POINTS = 5000;
+  private static final int SCANS = 64;
+
+  @Param({ "10000", "100000" }) public int referencePoints;
+
+  private final Random random = new Random(7);
+  private final WifiScanSnapshot[] scans = new WifiScanSnapshot[SCANS];
+  private FingerprintMatcher matcher;
+  private int scanIndex;
+
+  @Setup public void setUp() {
+    final FingerprintStore.Builder builder = new FingerprintStore.Builder();
+    for (int point = 0; point < referencePoints; point++) {
+      final int size = 10 + random.nextInt(20);
+      final int firstAccessPoint = random.nextInt(ACCESS_POINTS - 60);
+      final long[] bssids = new long[size];
+      final int[] rssis = new int[size];
+      for (int i = 0; i < size; i++) {
+        bssids[i] = firstAccessPoint + random.nextInt(60);
+        rssis[i] = -40 - random.nextInt(55);
+      }
+      builder.addReferencePoint(point % 300, point / 300, point % 4, bssids, rssis);
+      if (point < SCANS) {
+        for (int i = 0; i < size; i++) {
+          rssis[i] += random.nextInt(7) - 3;
+        }
+        scans[point] = new WifiScanSnapshot(ScanStatus.FRESH, bssids, new String[size], rssis,
+            new int[size], new long[size]);
+      }
+    }
+    matcher = new FingerprintMatcher(builder.build(), 4);
+  }
+
+  @Benchmark public LocationEstimate match() {
+    scanIndex = (scanIndex + 1) % SCANS;
+    return matcher.match(scans[scanIndex]);
+  }
+}
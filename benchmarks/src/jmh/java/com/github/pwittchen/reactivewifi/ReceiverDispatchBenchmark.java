@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivewifi;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.net.wifi.SupplicantState;
+import android.net.wifi.WifiInfo;
+import android.net.wifi.WifiManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures handling of a single broadcast by receivers created with create*Receiver methods.
+ * Consecutive broadcasts carry different values, so each of them is emitted.
+ * Connection info is cached like while Observables reading it are subscribed.
+ */
+@State(Scope.Thread) public class ReceiverDispatchBenchmark {
+  private static final int INTENTS = 16;
+
+  private final Context context = new FakeContext();
+  private final Intent[] rssiIntents = new Intent[INTENTS];
+  private final Intent[] supplicantStateIntents = new Intent[INTENTS];
+  private final Intent[] wifiStateIntents = new Intent[INTENTS];
+  private BroadcastReceiver wifiSignalLevelReceiver;
+  private BroadcastReceiver signalLevelReceiver;
+  private BroadcastReceiver supplicantStateReceiver;
+  private BroadcastReceiver accessPointChangesReceiver;
+  private BroadcastReceiver wifiStateChangeReceiver;
+  private BroadcastReceiver wifiSnapshotReceiver;
+  private int index;
+
+  @Setup public void setUp(final Blackhole blackhole) {
+    ReactiveWifi.getConnectionInfoCache().acquire(context, ReactiveWifi.getHub());
+    final FakeWifiManager wifiManager = new FakeWifiManager();
+    wifiManager.connectionInfo =
+        new WifiInfo("00:11:22:33:44:55", -60, 2412, SupplicantState.COMPLETED);
+
+    wifiSignalLevelReceiver = ReactiveWifi.createWifiSignalLevelReceiver(
+        new BlackholeEmitter<WifiSignalLevel>(blackhole), wifiManager);
+    signalLevelReceiver = ReactiveWifi.createSignalLevelReceiver(
+        new BlackholeEmitter<Integer>(blackhole), wifiManager, 10);
+    supplicantStateReceiver = ReactiveWifi.createSupplicantStateReceiver(
+        new BlackholeEmitter<SupplicantState>(blackhole));
+    accessPointChangesReceiver = ReactiveWifi.createAccessPointChangesReceiver(
+        new BlackholeEmitter<WifiInfo>(blackhole), wifiManager);
+    wifiStateChangeReceiver = ReactiveWifi.createWifiStateChangeReceiver(
+        new BlackholeEmitter<WifiState>(blackhole));
+    wifiSnapshotReceiver = new WifiSnapshotReceiver(new WifiListener<WifiSnapshot>() {
+      @Override public void onNext(final WifiSnapshot snapshot) {
+        blackhole.consume(snapshot);
+      }
+
+      @Override public void onError(final Throwable error) {
+        blackhole.consume(error);
+      }
+    }, wifiManager, new ScanScheduler(), ReactiveWifi.getHub().getHandler());
+
+    final SupplicantState[] supplicantStates = {
+        SupplicantState.ASSOCIATING, SupplicantState.ASSOCIATED,
+        SupplicantState.FOUR_WAY_HANDSHAKE, SupplicantState.COMPLETED
+    };
+
+    for (int i = 0; i < INTENTS; i++) {
+      rssiIntents[i] = new Intent(WifiManager.RSSI_CHANGED_ACTION)
+          .putExtra(WifiManager.EXTRA_NEW_RSSI, i % 2 == 0 ? -95 : -50);
+      supplicantStateIntents[i] = new Intent(WifiManager.SUPPLICANT_STATE_CHANGED_ACTION)
+          .putExtra(WifiManager.EXTRA_NEW_STATE, supplicantStates[i % supplicantStates.length]);
+      wifiStateIntents[i] = new Intent(WifiManager.WIFI_STATE_CHANGED_ACTION)
+          .putExtra(WifiManager.EXTRA_WIFI_STATE, i % 5);
+    }
+  }
+
+  @TearDown public void tearDown() {
+    ReactiveWifi.getConnectionInfoCache().release();
+  }
+
+  @Benchmark public void wifiSignalLevel() {
+    wifiSignalLevelReceiver.onReceive(context, nextIntent(rssiIntents));
+  }
+
+  @Benchmark public void signalLevel() {
+    signalLevelReceiver.onReceive(context, nextIntent(rssiIntents));
+  }
+
+  @Benchmark public void supplicantState() {
+    supplicantStateReceiver.onReceive(context, nextIntent(supplicantStateIntents));
+  }
+
+  @Benchmark public void accessPointChanges() {
+    accessPointChangesReceiver.onReceive(context, nextIntent(supplicantStateIntents));
+  }
+
+  /**
+   * Each broadcast invalidates cached connection info like supplicant state broadcast
+   * delivered by BroadcastReceiverHub, so WifiInfo is read for each of them
+   */
+  @Benchmark public void accessPointChangesUncached() {
+    ReactiveWifi.getConnectionInfoCache().invalidate();
+    accessPointChangesReceiver.onReceive(context, nextIntent(supplicantStateIntents));
+  }
+
+  @Benchmark public void wifiStateChange() {
+    wifiStateChangeReceiver.onReceive(context, nextIntent(wifiStateIntents));
+  }
+
+  /**
+   * Single receiver of the fused stream handles RSSI and supplicant state broadcasts in turns
+   */
+  @Benchmark public void wifiSnapshot() {
+    wifiSnapshotReceiver.onReceive(context,
+        nextIntent(index % 2 == 0 ? rssiIntents : supplicantStateIntents));
+  }
+
+  private Intent nextIntent(final Intent[] intents) {
+    index = (index + 1) % INTENTS;
+    return intents[index];
+  }
+}
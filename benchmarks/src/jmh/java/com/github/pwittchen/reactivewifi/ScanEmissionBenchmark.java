@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivewifi;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.net.wifi.ScanResult;
+import android.net.wifi.WifiManager;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures emission of scan results lists and their transformations.
+ * Two scans with different timestamps and RSSI alternate, so each scan is emitted.
+ */
+@State(Scope.Thread) public class ScanEmissionBenchmark {
+  @Param({ "10", "50", "200" }) public int accessPoints;
+
+  private final Context context = new FakeContext();
+  private final FakeWifiManager wifiManager = new FakeWifiManager();
+  private final Intent intent = new Intent(WifiManager.SCAN_RESULTS_AVAILABLE_ACTION)
+      .putExtra(WifiManager.EXTRA_RESULTS_UPDATED, true);
+  private List<ScanResult> previousScan;
+  private List<ScanResult> currentScan;
+  private BroadcastReceiver scanResultsReceiver;
+  private WifiScanSnapshotEncoder snapshotEncoder;
+  private AccessPointsDiffer accessPointsDiffer;
+  private WifiScanIndexer scanIndexer;
+
+  @Setup public void setUp(final Blackhole blackhole) {
+    previousScan = FakeWifiManager.createScanResults(accessPoints, 1000);
+    currentScan = FakeWifiManager.createScanResults(accessPoints, 2000);
+    for (ScanResult scanResult : currentScan) {
+      scanResult.level -= 3;
+    }
+
+    // coalescing is disabled, so scan results are read on each broadcast
+    final ScanScheduler scanScheduler = new ScanScheduler(4, 2, 0, 10, 0, TimeUnit.MINUTES);
+    scanResultsReceiver = ReactiveWifi.createWifiScanResultsReceiver(
+        new BlackholeEmitter<WifiScanResults>(blackhole), wifiManager, scanScheduler);
+    snapshotEncoder = new WifiScanSnapshotEncoder();
+    accessPointsDiffer = new AccessPointsDiffer();
+    scanIndexer = new WifiScanIndexer(10);
+  }
+
+  @Benchmark public void scanResultsReceiver() {
+    wifiManager.scanResults = nextScan();
+    scanResultsReceiver.onReceive(context, intent);
+  }
+
+  @Benchmark public WifiScanSnapshot scanSnapshot() {
+    return snapshotEncoder.encode(nextScan(), ScanStatus.FRESH);
+  }
+
+  @Benchmark public WifiAccessPointsDiff accessPointsDiff() throws Exception {
+    return accessPointsDiffer.apply(nextScan());
+  }
+
+  @Benchmark public WifiScanIndex scanIndex() {
+    return scanIndexer.index(nextScan(), ScanStatus.FRESH);
+  }
+
+  private List<ScanResult> nextScan() {
+    final List<ScanResult> scan = currentScan;
+    currentScan = previousScan;
+    previousScan = scan;
+    return scan;
+  }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivewifi;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures mapping of raw values from broadcasts into enums of the library
+ */
+@State(Scope.Thread) public class StateMappingBenchmark {
+  private int level;
+  private int state;
+
+  @Benchmark public WifiSignalLevel wifiSignalLevelFromLevel() {
+    level = (level + 1) % (WifiSignalLevel.getMaxLevel() + 1);
+    return WifiSignalLevel.fromLevel(level);
+  }
+
+  @Benchmark public WifiState wifiStateFromState() {
+    state = (state + 1) % 5;
+    return WifiState.fromState(state);
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivewifi;
+
+import android.content.Context;
+import android.os.Looper;
+import io.reactivex.disposables.CompositeDisposable;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.functions.Consumer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures subscription to the public Observables and its disposal, which registers
+ * and unregisters receivers in the hub. Benchmarks with the shared receiver subscribe,
+ * when another subscriber already observes the same broadcast. Messages posted to the looper
+ * are run after each frame, in which subscriptions are created or disposed.
+ */
+@State(Scope.Thread) public class SubscriptionBenchmark {
+  private final Context context = new FakeContext();
+  private final Looper looper = Looper.getMainLooper();
+  private final Consumer<Object> consumer = new Consumer<Object>() {
+    @Override public void accept(final Object value) {
+    }
+  };
+  private Disposable sharedSubscription;
+
+  @Setup public void setUp() {
+    sharedSubscription = ReactiveWifi.observeWifiStateChange(context).subscribe(consumer);
+    looper.loopOnce();
+  }
+
+  @TearDown public void tearDown() {
+    sharedSubscription.dispose();
+    looper.loopOnce();
+  }
+
+  @Benchmark public void signalLevel() {
+    ReactiveWifi.observeWifiSignalLevel(context).subscribe(consumer).dispose();
+    looper.loopOnce();
+  }
+
+  @Benchmark public void signalLevelWithCurrentValue() {
+    ReactiveWifi.observeWifiSignalLevel(context, true).subscribe(consumer).dispose();
+    looper.loopOnce();
+  }
+
+  @Benchmark public void scanResults() {
+    ReactiveWifi.observeWifiAccessPoints(context).subscribe(consumer).dispose();
+    looper.loopOnce();
+  }
+
+  @Benchmark public void wifiStateWithSharedReceiver() {
+    ReactiveWifi.observeWifiStateChange(context).subscribe(consumer).dispose();
+    looper.loopOnce();
+  }
+
+  @Benchmark public void pauseResumeCycle() {
+    final CompositeDisposable subscriptions = new CompositeDisposable();
+    subscriptions.add(ReactiveWifi.observeWifiAccessPoints(context).subscribe(consumer));
+    subscriptions.add(ReactiveWifi.observeWifiSignalLevel(context).subscribe(consumer));
+    subscriptions.add(ReactiveWifi.observeSupplicantState(context).subscribe(consumer));
+    subscriptions.add(ReactiveWifi.observeWifiAccessPointChanges(context).subscribe(consumer));
+    subscriptions.add(ReactiveWifi.observeWifiStateChange(context).subscribe(consumer));
+    looper.loopOnce();
+    subscriptions.dispose();
+    looper.loopOnce();
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivewifi;
+
+import android.content.Intent;
+import android.net.wifi.ScanResult;
+import android.os.Looper;
+import io.reactivex.disposables.CompositeDisposable;
+import io.reactivex.functions.Consumer;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures end-to-end handling of a synthetic 10 minutes long WiFi trace of a walking device.
+ * Trace is replayed without waiting into the receivers registered by the public Observables,
+ * so a single operation covers all broadcasts of the trace.
+ */
+@State(Scope.Thread) public class TraceReplayBenchmark {
+  @Param({ "100", "500" }) public int accessPoints;
+
+  private final FakeContext context = new FakeContext();
+  private final Looper looper = Looper.getMainLooper();
+  private final Map<WifiTraceEvent, Intent> intents = new IdentityHashMap<>();
+  private final Map<WifiTraceEvent, List<ScanResult>> scans = new IdentityHashMap<>();
+  private final CompositeDisposable subscriptions = new CompositeDisposable();
+  private WifiTraceReplayer replayer;
+  private WifiTraceReplayer.Target target;
+
+  @Setup public void setUp(final Blackhole blackhole) {
+    final List<WifiTraceEvent> events =
+        SyntheticWifiTrace.mobility(accessPoints, 1.4, 10, TimeUnit.MINUTES, 42);
+    for (WifiTraceEvent event : events) {
+      intents.put(event, event.toIntent());
+      if (event.scan != null) {
+        scans.put(event, FakeWifiManager.createScanResults(event.scan));
+      }
+    }
+
+    replayer = new WifiTraceReplayer(events, WifiTraceReplayer.MAX_SPEED);
+    target = new WifiTraceReplayer.Target() {
+      @Override public void deliver(final WifiTraceEvent event) {
+        final List<ScanResult> scanResults = scans.get(event);
+        if (scanResults != null) {
+          context.wifiManager.scanResults = scanResults;
+        }
+        context.sendBroadcast(intents.get(event));
+        looper.loopOnce();
+      }
+    };
+
+    final Consumer<Object> consumer = new Consumer<Object>() {
+      @Override public void accept(final Object value) {
+        blackhole.consume(value);
+      }
+    };
+    subscriptions.add(ReactiveWifi.observeWifiAccessPoints(context).subscribe(consumer));
+    subscriptions.add(ReactiveWifi.observeWifiSignalLevel(context).subscribe(consumer));
+    subscriptions.add(ReactiveWifi.observeSupplicantState(context).subscribe(consumer));
+    subscriptions.add(ReactiveWifi.observeWifiAccessPointChanges(context).subscribe(consumer));
+    subscriptions.add(ReactiveWifi.observeWifiStateChange(context).subscribe(consumer));
+    looper.loopOnce();
+  }
+
+  @TearDown public void tearDown() {
+    subscriptions.dispose();
+    looper.loopOnce();
+  }
+
+  @Benchmark public long replay() throws Exception {
+    return replayer.replay(target);
+  }
+}
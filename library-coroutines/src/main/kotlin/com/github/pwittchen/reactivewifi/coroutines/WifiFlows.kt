@@ -0,0 +1,331 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivewifi.coroutines
+
+import android.Manifest.permission.ACCESS_COARSE_LOCATION
+import android.Manifest.permission.ACCESS_FINE_LOCATION
+import android.Manifest.permission.ACCESS_WIFI_STATE
+import android.Manifest.permission.CHANGE_WIFI_STATE
+import android.annotation.SuppressLint
+import android.content.Context
+import android.net.wifi.ScanResult
+import android.net.wifi.SupplicantState
+import android.net.wifi.WifiInfo
+import androidx.annotation.RequiresPermission
+import com.github.pwittchen.reactivewifi.WifiListener
+import com.github.pwittchen.reactivewifi.WifiListeners
+import com.github.pwittchen.reactivewifi.WifiScanResults
+import com.github.pwittchen.reactivewifi.WifiSignalLevel
+import com.github.pwittchen.reactivewifi.WifiState
+import io.reactivex.disposables.Disposable
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.channels.BufferOverflow
+import kotlinx.coroutines.channels.Channel
+import kotlinx.coroutines.channels.ClosedSendChannelException
+import kotlinx.coroutines.channels.SendChannel
+import kotlinx.coroutines.channels.awaitClose
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.SharingStarted
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.buffer
+import kotlinx.coroutines.flow.callbackFlow
+import kotlinx.coroutines.flow.flowOn
+import kotlinx.coroutines.flow.stateIn
+
+/**
+ * WifiFlows observes the same WiFi information as ReactiveWifi with Kotlin Flows.
+ * Flows are built directly on the shared BroadcastReceivers of the library through
+ * [WifiListeners], so values go from the receiver straight to the channel of the Flow
+ * without RxJava emitters in between.
+ *
+ * Flows are conflated by default, so a slow collector gets only the latest value.
+ * Pass another [capacity] (e.g. [Channel.BUFFERED]) to keep more values. When the buffer
+ * is full, the oldest value is dropped ([BufferOverflow.DROP_OLDEST]), because broadcasts
+ * can't wait for the collector and the newest value describes the current state.
+ * [Channel.BUFFERED] keeps [DEFAULT_BUFFER_CAPACITY] values.
+ * Receivers are registered and unregistered on given [CoroutineDispatcher], which is
+ * [Dispatchers.IO] by default. Buffer and dispatcher are fused into a single channel.
+ * Values are delivered to collectors in their own context.
+ */
+@OptIn(ExperimentalCoroutinesApi::class)
+object WifiFlows {
+  const val DEFAULT_BUFFER_CAPACITY = 64
+
+  /**
+   * Observes WiFi Access Points. Emits fresh list of Access Points
+   * whenever new scan results are available.
+   *
+   * @param context Context of the activity or an application
+   * @param dispatcher on which receivers are registered and unregistered
+   * @param capacity of the buffer between receiver and collector
+   * @return Flow with list of WiFi scan results
+   */
+  @SuppressLint("MissingPermission")
+  @RequiresPermission(
+      allOf = [ACCESS_COARSE_LOCATION, ACCESS_FINE_LOCATION, CHANGE_WIFI_STATE, ACCESS_WIFI_STATE]
+  )
+  fun observeWifiAccessPoints(
+    context: Context,
+    dispatcher: CoroutineDispatcher = Dispatchers.IO,
+    capacity: Int = Channel.CONFLATED
+  ): Flow<List<ScanResult>> = listenerFlow(dispatcher, capacity) { listener ->
+    WifiListeners.listenForWifiScanResults(context, object : WifiListener<WifiScanResults> {
+      override fun onNext(value: WifiScanResults) = listener.onNext(value.scanResults)
+      override fun onError(error: Throwable) = listener.onError(error)
+    })
+  }
+
+  /**
+   * Observes WiFi signal level with predefined max num levels.
+   * Emits WiFi signal level as enum whenever the level changes.
+   *
+   * @param context Context of the activity or an application
+   * @param emitCurrentValue true if the current level should be emitted right after collection
+   * starts
+   * @param dispatcher on which receivers are registered and unregistered
+   * @param capacity of the buffer between receiver and collector
+   * @return Flow with WifiSignalLevel
+   */
+  @RequiresPermission(ACCESS_WIFI_STATE)
+  fun observeWifiSignalLevel(
+    context: Context,
+    emitCurrentValue: Boolean = false,
+    dispatcher: CoroutineDispatcher = Dispatchers.IO,
+    capacity: Int = Channel.CONFLATED
+  ): Flow<WifiSignalLevel> = listenerFlow(dispatcher, capacity) { listener ->
+    WifiListeners.listenForWifiSignalLevel(context, emitCurrentValue, listener)
+  }
+
+  /**
+   * Observes WiFi signal level.
+   * Emits WiFi signal level as an integer whenever the level changes.
+   *
+   * @param context Context of the activity or an application
+   * @param numLevels The number of levels to consider in the calculated level
+   * @param emitCurrentValue true if the current level should be emitted right after collection
+   * starts
+   * @param dispatcher on which receivers are registered and unregistered
+   * @param capacity of the buffer between receiver and collector
+   * @return Flow with WiFi signal level
+   */
+  @RequiresPermission(ACCESS_WIFI_STATE)
+  fun observeWifiSignalLevel(
+    context: Context,
+    numLevels: Int,
+    emitCurrentValue: Boolean = false,
+    dispatcher: CoroutineDispatcher = Dispatchers.IO,
+    capacity: Int = Channel.CONFLATED
+  ): Flow<Int> = listenerFlow(dispatcher, capacity) { listener ->
+    WifiListeners.listenForWifiSignalLevel(context, numLevels, emitCurrentValue, listener)
+  }
+
+  /**
+   * Observes the current WPA supplicant state.
+   * Emits SupplicantState whenever it changes.
+   *
+   * @param context Context of the activity or an application
+   * @param dispatcher on which receivers are registered and unregistered
+   * @param capacity of the buffer between receiver and collector
+   * @return Flow with SupplicantState
+   */
+  @RequiresPermission(ACCESS_WIFI_STATE)
+  fun observeSupplicantState(
+    context: Context,
+    dispatcher: CoroutineDispatcher = Dispatchers.IO,
+    capacity: Int = Channel.CONFLATED
+  ): Flow<SupplicantState> = listenerFlow(dispatcher, capacity) { listener ->
+    WifiListeners.listenForSupplicantState(context, listener)
+  }
+
+  /**
+   * Observes the WiFi network the device is connected to.
+   * Emits WifiInfo whenever connection to the Access Point is completed.
+   *
+   * @param context Context of the activity or an application
+   * @param emitCurrentValue true if information about the network the device is currently
+   * connected to should be emitted right after collection starts
+   * @param dispatcher on which receivers are registered and unregistered
+   * @param capacity of the buffer between receiver and collector
+   * @return Flow with WifiInfo
+   */
+  @RequiresPermission(ACCESS_WIFI_STATE)
+  fun observeWifiAccessPointChanges(
+    context: Context,
+    emitCurrentValue: Boolean = false,
+    dispatcher: CoroutineDispatcher = Dispatchers.IO,
+    capacity: Int = Channel.CONFLATED
+  ): Flow<WifiInfo> = listenerFlow(dispatcher, capacity) { listener ->
+    WifiListeners.listenForWifiAccessPointChanges(context, emitCurrentValue, listener)
+  }
+
+  /**
+   * Observes WiFi state changes.
+   * Emits WifiState whenever WiFi is enabled, disabled, enabling, disabling or unknown.
+   *
+   * @param context Context of the activity or an application
+   * @param emitCurrentValue true if the current state should be emitted right after collection
+   * starts
+   * @param dispatcher on which receivers are registered and unregistered
+   * @param capacity of the buffer between receiver and collector
+   * @return Flow with WifiState
+   */
+  @RequiresPermission(ACCESS_WIFI_STATE)
+  fun observeWifiStateChange(
+    context: Context,
+    emitCurrentValue: Boolean = false,
+    dispatcher: CoroutineDispatcher = Dispatchers.IO,
+    capacity: Int = Channel.CONFLATED
+  ): Flow<WifiState> = listenerFlow(dispatcher, capacity) { listener ->
+    WifiListeners.listenForWifiStateChange(context, emitCurrentValue, listener)
+  }
+
+  /**
+   * Holds the latest list of WiFi Access Points, which is empty until the first scan results
+   * arrive. Receivers are registered only while the StateFlow is collected by default.
+   *
+   * @param context Context of the activity or an application
+   * @param scope in which receivers stay registered
+   * @param started strategy telling when receivers are registered and unregistered
+   * @param dispatcher on which receivers are registered and unregistered
+   * @return StateFlow with list of WiFi scan results
+   */
+  @SuppressLint("MissingPermission")
+  @RequiresPermission(
+      allOf = [ACCESS_COARSE_LOCATION, ACCESS_FINE_LOCATION, CHANGE_WIFI_STATE, ACCESS_WIFI_STATE]
+  )
+  fun wifiAccessPointsState(
+    context: Context,
+    scope: CoroutineScope,
+    started: SharingStarted = SharingStarted.WhileSubscribed(),
+    dispatcher: CoroutineDispatcher = Dispatchers.IO
+  ): StateFlow<List<ScanResult>> =
+    observeWifiAccessPoints(context, dispatcher).stateIn(scope, started, emptyList())
+
+  /**
+   * Holds the current WiFi signal level, which is read right after the receiver is registered.
+   *
+   * @param context Context of the activity or an application
+   * @param scope in which receivers stay registered
+   * @param started strategy telling when receivers are registered and unregistered
+   * @param dispatcher on which receivers are registered and unregistered
+   * @return StateFlow with WifiSignalLevel
+   */
+  @RequiresPermission(ACCESS_WIFI_STATE)
+  fun wifiSignalLevelState(
+    context: Context,
+    scope: CoroutineScope,
+    started: SharingStarted = SharingStarted.WhileSubscribed(),
+    dispatcher: CoroutineDispatcher = Dispatchers.IO
+  ): StateFlow<WifiSignalLevel> = observeWifiSignalLevel(context, true, dispatcher)
+      .stateIn(scope, started, WifiSignalLevel.NO_SIGNAL)
+
+  /**
+   * Holds the current WPA supplicant state, which is UNINITIALIZED until the first broadcast.
+   *
+   * @param context Context of the activity or an application
+   * @param scope in which receivers stay registered
+   * @param started strategy telling when receivers are registered and unregistered
+   * @param dispatcher on which receivers are registered and unregistered
+   * @return StateFlow with SupplicantState
+   */
+  @RequiresPermission(ACCESS_WIFI_STATE)
+  fun supplicantState(
+    context: Context,
+    scope: CoroutineScope,
+    started: SharingStarted = SharingStarted.WhileSubscribed(),
+    dispatcher: CoroutineDispatcher = Dispatchers.IO
+  ): StateFlow<SupplicantState> = observeSupplicantState(context, dispatcher)
+      .stateIn(scope, started, SupplicantState.UNINITIALIZED)
+
+  /**
+   * Holds information about the WiFi network the device is connected to,
+   * which is read right after the receiver is registered. It's null before that.
+   *
+   * @param context Context of the activity or an application
+   * @param scope in which receivers stay registered
+   * @param started strategy telling when receivers are registered and unregistered
+   * @param dispatcher on which receivers are registered and unregistered
+   * @return StateFlow with WifiInfo
+   */
+  @RequiresPermission(ACCESS_WIFI_STATE)
+  fun wifiAccessPointState(
+    context: Context,
+    scope: CoroutineScope,
+    started: SharingStarted = SharingStarted.WhileSubscribed(),
+    dispatcher: CoroutineDispatcher = Dispatchers.IO
+  ): StateFlow<WifiInfo?> = observeWifiAccessPointChanges(context, true, dispatcher)
+      .stateIn(scope, started, null)
+
+  /**
+   * Holds the current WiFi state, which is read right after the receiver is registered.
+   *
+   * @param context Context of the activity or an application
+   * @param scope in which receivers stay registered
+   * @param started strategy telling when receivers are registered and unregistered
+   * @param dispatcher on which receivers are registered and unregistered
+   * @return StateFlow with WifiState
+   */
+  @RequiresPermission(ACCESS_WIFI_STATE)
+  fun wifiState(
+    context: Context,
+    scope: CoroutineScope,
+    started: SharingStarted = SharingStarted.WhileSubscribed(),
+    dispatcher: CoroutineDispatcher = Dispatchers.IO
+  ): StateFlow<WifiState> = observeWifiStateChange(context, true, dispatcher)
+      .stateIn(scope, started, WifiState.UNKNOWN)
+
+  private inline fun <T> listenerFlow(
+    dispatcher: CoroutineDispatcher,
+    capacity: Int,
+    crossinline listen: (WifiListener<T>) -> Disposable
+  ): Flow<T> = callbackFlow<T> {
+    val disposable = listen(object : WifiListener<T> {
+      override fun onNext(value: T) {
+        offerIfOpen(value)
+      }
+
+      override fun onError(error: Throwable) {
+        close(error)
+      }
+    })
+    awaitClose { disposable.dispose() }
+  }.dropOldestOnOverflow(capacity).flowOn(dispatcher)
+
+  private fun <T> Flow<T>.dropOldestOnOverflow(capacity: Int): Flow<T> = when (capacity) {
+    Channel.CONFLATED -> buffer(Channel.CONFLATED)
+    // BUFFERED capacity without suspension would be reduced to a single value
+    Channel.BUFFERED -> buffer(DEFAULT_BUFFER_CAPACITY, BufferOverflow.DROP_OLDEST)
+    else -> buffer(capacity, BufferOverflow.DROP_OLDEST)
+  }
+
+  private fun <T> SendChannel<T>.offerIfOpen(value: T) {
+    if (isClosedForSend) {
+      return
+    }
+    try {
+      // buffer drops the oldest value on overflow, so offer() fails only for closed channel
+      offer(value)
+    } catch (exception: ClosedSendChannelException) {
+      // flow has been completed on another thread, so there's no one to deliver the value to
+    } catch (exception: CancellationException) {
+      // collector has been cancelled on another thread after the check above
+    }
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivewifi;
+
+import android.net.wifi.ScanResult;
+
+/**
+ * AccessPointChange describes WiFi Access Point, which was present in two consecutive scans,
+ * but some of its fields have changed. Changed fields are marked in a bitmask.
+ */
+public class AccessPointChange {
+  public static final int FIELD_SSID = 1;
+  public static final int FIELD_RSSI = 1 << 1;
+  public static final int FIELD_FREQUENCY = 1 << 2;
+  public static final int FIELD_CAPABILITIES = 1 << 3;
+  public static final int FIELD_CHANNEL_WIDTH = 1 << 4;
+
+  public final ScanResult previous;
+  public final ScanResult current;
+  public final int changedFields;
+
+  public AccessPointChange(final ScanResult previous, final ScanResult current,
+      final int changedFields) {
+    this.previous = previous;
+    this.current = current;
+    this.changedFields = changedFields;
+  }
+
+  /**
+   * Compares fields of two scan results of the same Access Point
+   *
+   * @param previous scan result from the previous scan
+   * @param current scan result from the current scan
+   * @return bitmask of changed fields or 0 if nothing has changed
+   */
+  public static int compare(final ScanResult previous, final ScanResult current) {
+    int changedFields = 0;
+    if (!equals(previous.SSID, current.SSID)) {
+      changedFields |= FIELD_SSID;
+    }
+    if (previous.level != current.level) {
+      changedFields |= FIELD_RSSI;
+    }
+    if (previous.frequency != current.frequency) {
+      changedFields |= FIELD_FREQUENCY;
+    }
+    if (!equals(previous.capabilities, current.capabilities)) {
+      changedFields |= FIELD_CAPABILITIES;
+    }
+    if (previous.channelWidth != current.channelWidth) {
+      changedFields |= FIELD_CHANNEL_WIDTH;
+    }
+    return changedFields;
+  }
+
+  /**
+   * Checks if given field has changed
+   *
+   * @param field one of FIELD_* constants
+   * @return true if field has changed
+   */
+  public boolean hasChanged(final int field) {
+    return (changedFields & field) != 0;
+  }
+
+  private static boolean equals(final String first, final String second) {
+    return first == null ? second == null : first.equals(second);
+  }
+
+  @Override public String toString() {
+    return "AccessPointChange{"
+        + "bssid='" + current.BSSID + '\''
+        + ", changedFields=" + changedFields
+        + '}';
+  }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivewifi;
+
+import android.net.wifi.ScanResult;
+import io.reactivex.functions.Function;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * AccessPointsDiffer computes difference between consecutive WiFi scans.
+ * Access Points are indexed by BSSID, so single diff takes linear time.
+ * It keeps the previous scan, so a new instance has to be used for each subscription.
+ */
+final class AccessPointsDiffer implements Function<List<ScanResult>, WifiAccessPointsDiff> {
+  private Map<String, ScanResult> previousScan = new HashMap<>();
+
+  @Override public WifiAccessPointsDiff apply(final List<ScanResult> scanResults) {
+    final Map<String, ScanResult> currentScan = new HashMap<>(scanResults.size() * 2);
+    final List<ScanResult> added = new ArrayList<>();
+    final List<AccessPointChange> changed = new ArrayList<>();
+
+    for (ScanResult current : scanResults) {
+      if (current.BSSID == null || currentScan.put(current.BSSID, current) != null) {
+        continue;
+      }
+
+      final ScanResult previous = previousScan.remove(current.BSSID);
+      if (previous == null) {
+        added.add(current);
+        continue;
+      }
+
+      final int changedFields = AccessPointChange.compare(previous, current);
+      if (changedFields != 0) {
+        changed.add(new AccessPointChange(previous, current, changedFields));
+      }
+    }
+
+    final List<ScanResult> removed = new ArrayList<>(previousScan.values());
+    previousScan = currentScan;
+    return new WifiAccessPointsDiff(added, removed, changed);
+  }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivewifi;
+
+import android.net.wifi.ScanResult;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AdaptiveScanScheduler adapts interval between WiFi scans to churn of scan results.
+ * Churn of a scan is a fraction of Access Points added or removed since the previous scan
+ * plus mean absolute change of RSSI of the remaining ones divided by RSSI_CHURN_SCALE_DBM,
+ * limited to 1. It's smoothed with exponentially weighted moving average. While smoothed
+ * churn is low, interval grows by GROWTH_FACTOR up to maxInterval. When churn rises,
+ * interval drops back to minInterval, so the device moving through a building scans often
+ * and the device lying on a desk scans rarely. Budget and backoff work like in ScanScheduler.
+ */
+public class AdaptiveScanScheduler extends ScanScheduler {
+  public static final long DEFAULT_MAX_INTERVAL_MS = TimeUnit.MINUTES.toMillis(5);
+  public static final double DEFAULT_LOW_CHURN = 0.1;
+  public static final double DEFAULT_HIGH_CHURN = 0.3;
+  static final double GROWTH_FACTOR = 1.5;
+  static final double SMOOTHING = 0.5;
+  static final double RSSI_CHURN_SCALE_DBM = 10;
+
+  private final long minInterval;
+  private final long maxInterval;
+  private final double lowChurn;
+  private final double highChurn;
+  private Map<String, Integer> previousScan;
+  private long previousFingerprint;
+  private double churn;
+  private long interval;
+
+  /**
+   * Creates AdaptiveScanScheduler with default configuration
+   */
+  public AdaptiveScanScheduler() {
+    this(DEFAULT_SCAN_BUDGET, DEFAULT_BUDGET_PERIOD_MS, DEFAULT_MIN_INTERVAL_MS,
+        DEFAULT_MAX_INTERVAL_MS, DEFAULT_MAX_BACKOFF_MS, DEFAULT_LOW_CHURN, DEFAULT_HIGH_CHURN,
+        TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Creates AdaptiveScanScheduler with custom configuration
+   *
+   * @param scanBudget max number of scans, which can be started within budget period
+   * @param budgetPeriod period of time, in which scan budget is counted
+   * @param minInterval interval between scans, when results change, and initial backoff
+   * @param maxInterval interval between scans, when results are stable
+   * @param maxBackoff max interval between two consecutive scans after failures
+   * @param lowChurn churn between 0 and 1, below which interval grows
+   * @param highChurn churn between 0 and 1, above which interval drops to minInterval
+   * @param unit time unit of budgetPeriod, minInterval, maxInterval and maxBackoff
+   */
+  public AdaptiveScanScheduler(final int scanBudget, final long budgetPeriod,
+      final long minInterval, final long maxInterval, final long maxBackoff,
+      final double lowChurn, final double highChurn, final TimeUnit unit) {
+    super(scanBudget, budgetPeriod, minInterval, maxBackoff, unit);
+    if (maxInterval < minInterval) {
+      throw new IllegalArgumentException("maxInterval can't be lower than minInterval");
+    }
+    if (lowChurn < 0 || highChurn > 1 || lowChurn > highChurn) {
+      throw new IllegalArgumentException(
+          "lowChurn and highChurn have to be between 0 and 1 and lowChurn can't be greater "
+              + "than highChurn");
+    }
+    this.minInterval = unit.toMillis(minInterval);
+    this.maxInterval = unit.toMillis(maxInterval);
+    this.lowChurn = lowChurn;
+    this.highChurn = highChurn;
+    this.interval = this.minInterval;
+  }
+
+  @Override public synchronized void onScanResultsRead(final List<ScanResult> scanResults) {
+    // the same results are reported by each observer, but only a new scan changes timestamps
+    final long fingerprint = ScanResultsReceiver.fingerprint(scanResults);
+    if (previousScan != null && fingerprint == previousFingerprint) {
+      return;
+    }
+    previousFingerprint = fingerprint;
+
+    final Map<String, Integer> currentScan = new HashMap<>(scanResults.size() * 2);
+    for (ScanResult scanResult : scanResults) {
+      if (scanResult.BSSID != null) {
+        currentScan.put(scanResult.BSSID, scanResult.level);
+      }
+    }
+
+    if (previousScan != null) {
+      churn = SMOOTHING * computeChurn(previousScan, currentScan) + (1 - SMOOTHING) * churn;
+      if (churn > highChurn) {
+        interval = minInterval;
+      } else if (churn < lowChurn) {
+        final long grownInterval = Math.max(interval + 1, (long) (interval * GROWTH_FACTOR));
+        interval = Math.min(maxInterval, grownInterval);
+      }
+    }
+    previousScan = currentScan;
+  }
+
+  /**
+   * Returns smoothed churn of scan results
+   *
+   * @return churn between 0 (no change) and 1
+   */
+  public synchronized double getChurn() {
+    return churn;
+  }
+
+  @Override protected synchronized long getScanInterval() {
+    return interval;
+  }
+
+  static double computeChurn(final Map<String, Integer> previousScan,
+      final Map<String, Integer> currentScan) {
+    int common = 0;
+    long rssiChange = 0;
+    for (Map.Entry<String, Integer> entry : currentScan.entrySet()) {
+      final Integer previousRssi = previousScan.get(entry.getKey());
+      if (previousRssi != null) {
+        common++;
+        rssiChange += Math.abs(entry.getValue() - previousRssi);
+      }
+    }
+
+    final int union = previousScan.size() + currentScan.size() - common;
+    if (union == 0) {
+      return 0;
+    }
+    final double setChurn = (double) (union - common) / union;
+    final double rssiChurn =
+        common > 0 ? (double) rssiChange / common / RSSI_CHURN_SCALE_DBM : 0;
+    return Math.min(1, setChurn + rssiChurn);
+  }
+}
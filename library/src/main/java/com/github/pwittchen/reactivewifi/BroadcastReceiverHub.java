@@ -0,0 +1,273 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivewifi;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * BroadcastReceiverHub registers at most one BroadcastReceiver per intent action
+ * and fans received broadcasts out to all receivers subscribed to this action.
+ * Shared receiver is unregistered after the last subscribed receiver leaves the hub.
+ * Broadcasts are delivered on the thread of the hub's Handler. The last intent of each action
+ * is kept, so it can be delivered to receivers joining later without asking the system again.
+ */
+final class BroadcastReceiverHub {
+  private static final String THREAD_NAME = "ReactiveWifi";
+  private final Map<String, SharedReceiver> receivers = new HashMap<>();
+  private final List<SharedReceiver> pendingUnregistrations = new ArrayList<>();
+  private final Runnable unregisterPendingReceivers = new Runnable() {
+    @Override public void run() {
+      unregisterPendingReceivers();
+    }
+  };
+  private final Handler handler;
+  private boolean unregistrationScheduled;
+  private boolean replaying;
+
+  BroadcastReceiverHub(final Handler handler) {
+    this.handler = handler;
+  }
+
+  static BroadcastReceiverHub createForMainThread() {
+    return new BroadcastReceiverHub(new Handler(Looper.getMainLooper()));
+  }
+
+  static BroadcastReceiverHub createForBackgroundThread() {
+    final HandlerThread thread =
+        new HandlerThread(THREAD_NAME, Process.THREAD_PRIORITY_BACKGROUND);
+    thread.start();
+    return new BroadcastReceiverHub(new Handler(thread.getLooper()));
+  }
+
+  /**
+   * Subscribes receiver to broadcasts with given actions.
+   * System BroadcastReceiver is registered only for actions, which are not observed yet.
+   *
+   * @param context Context of the activity or an application
+   * @param receiver which should get broadcasts
+   * @param actions of the broadcasts
+   */
+  void register(final Context context, final BroadcastReceiver receiver,
+      final String... actions) {
+    register(context, receiver, false, actions);
+  }
+
+  /**
+   * Subscribes receiver to broadcasts with given actions.
+   * System BroadcastReceiver is registered only for actions, which are not observed yet.
+   * Sticky intents are always delivered to the receiver right after subscription.
+   *
+   * @param context Context of the activity or an application
+   * @param receiver which should get broadcasts
+   * @param replayLastIntent true if the last received intent should be delivered
+   * to the receiver right after subscription
+   * @param actions of the broadcasts
+   * @return true if sticky or the last intent will be delivered to the receiver
+   */
+  boolean register(final Context context, final BroadcastReceiver receiver,
+      final boolean replayLastIntent, final String... actions) {
+    boolean intentDelivered = false;
+    synchronized (receivers) {
+      for (String action : actions) {
+        SharedReceiver sharedReceiver = receivers.get(action);
+        if (sharedReceiver == null) {
+          sharedReceiver = new SharedReceiver(action, getApplicationContext(context));
+          sharedReceiver.receivers.add(receiver);
+          receivers.put(action, sharedReceiver);
+          final Intent stickyIntent = sharedReceiver.context.registerReceiver(sharedReceiver,
+              new IntentFilter(action), null, handler);
+          if (stickyIntent != null) {
+            // system delivers sticky intent to the newly registered receiver
+            sharedReceiver.sticky = true;
+            sharedReceiver.lastIntent = stickyIntent;
+            intentDelivered = true;
+          }
+        } else {
+          sharedReceiver.receivers.add(receiver);
+          final Intent lastIntent = sharedReceiver.lastIntent;
+          if ((sharedReceiver.sticky || replayLastIntent) && lastIntent != null) {
+            deliver(sharedReceiver, receiver, lastIntent);
+            intentDelivered = true;
+          }
+        }
+      }
+    }
+    return intentDelivered;
+  }
+
+  /**
+   * Tells whether the intent, which is being delivered, is a sticky intent or an intent
+   * replayed to the newly subscribed receiver rather than a live broadcast.
+   * It has to be called on the thread of the hub's Handler from onReceive() of the receiver.
+   *
+   * @return true if the intent being delivered is not a live broadcast
+   */
+  boolean isReplaying() {
+    return replaying;
+  }
+
+  /**
+   * Returns handler of the thread, on which broadcasts are delivered
+   */
+  Handler getHandler() {
+    return handler;
+  }
+
+  /**
+   * Delivers intent with the current value read outside of the broadcast to the receiver.
+   * Intent is kept as the last intent of its action, if there was no broadcast yet,
+   * so receivers subscribed later can get it without reading the current value again.
+   *
+   * @param receiver subscribed to the action of the intent
+   * @param intent with the current value
+   */
+  void seed(final BroadcastReceiver receiver, final Intent intent) {
+    final SharedReceiver sharedReceiver;
+    synchronized (receivers) {
+      sharedReceiver = receivers.get(intent.getAction());
+      if (sharedReceiver == null) {
+        return;
+      }
+      if (sharedReceiver.lastIntent == null) {
+        sharedReceiver.lastIntent = intent;
+      }
+    }
+    deliver(sharedReceiver, receiver, intent);
+  }
+
+  /**
+   * Unsubscribes receiver from broadcasts with given actions. Receiver stops getting broadcasts
+   * immediately on any thread. System BroadcastReceivers left without subscribed receivers
+   * are unregistered later in a single pass on the thread of the hub's Handler, so many
+   * receivers unsubscribed at once (e.g. in onPause) cost a single message. When a receiver
+   * subscribes to the action before that pass, the system BroadcastReceiver is reused.
+   *
+   * @param receiver which should not get broadcasts anymore
+   * @param actions of the broadcasts
+   */
+  void unregister(final BroadcastReceiver receiver, final String... actions) {
+    synchronized (receivers) {
+      for (String action : actions) {
+        final SharedReceiver sharedReceiver = receivers.get(action);
+        if (sharedReceiver == null) {
+          continue;
+        }
+        sharedReceiver.receivers.remove(receiver);
+        if (sharedReceiver.receivers.isEmpty() && !sharedReceiver.unregistrationPending) {
+          sharedReceiver.unregistrationPending = true;
+          // time is recorded even without metrics, because they can be set before it's reported
+          sharedReceiver.unregistrationRequestedAt = System.nanoTime();
+          pendingUnregistrations.add(sharedReceiver);
+        }
+      }
+
+      if (!pendingUnregistrations.isEmpty() && !unregistrationScheduled) {
+        unregistrationScheduled = true;
+        handler.post(unregisterPendingReceivers);
+      }
+    }
+  }
+
+  private void unregisterPendingReceivers() {
+    final List<SharedReceiver> unusedReceivers = new ArrayList<>();
+    synchronized (receivers) {
+      unregistrationScheduled = false;
+      for (SharedReceiver sharedReceiver : pendingUnregistrations) {
+        sharedReceiver.unregistrationPending = false;
+        if (sharedReceiver.receivers.isEmpty()) {
+          receivers.remove(sharedReceiver.action);
+          unusedReceivers.add(sharedReceiver);
+        }
+      }
+      pendingUnregistrations.clear();
+    }
+
+    // binder calls are done outside of the lock, so subscriptions are not blocked
+    final ReactiveWifiMetrics metrics = ReactiveWifi.getMetrics();
+    for (SharedReceiver sharedReceiver : unusedReceivers) {
+      ReactiveWifi.tryToUnregisterReceiver(sharedReceiver.context, sharedReceiver);
+      if (metrics != ReactiveWifiMetrics.NO_OP) {
+        metrics.onUnregistered(System.nanoTime() - sharedReceiver.unregistrationRequestedAt);
+      }
+    }
+  }
+
+  private void deliver(final SharedReceiver sharedReceiver, final BroadcastReceiver receiver,
+      final Intent intent) {
+    handler.post(new Runnable() {
+      @Override public void run() {
+        if (sharedReceiver.receivers.contains(receiver)) {
+          replaying = true;
+          try {
+            receiver.onReceive(sharedReceiver.context, intent);
+          } finally {
+            replaying = false;
+          }
+        }
+      }
+    });
+  }
+
+  private static Context getApplicationContext(final Context context) {
+    final Context applicationContext = context.getApplicationContext();
+    return applicationContext != null ? applicationContext : context;
+  }
+
+  private final class SharedReceiver extends BroadcastReceiver {
+    private final List<BroadcastReceiver> receivers = new CopyOnWriteArrayList<>();
+    private final String action;
+    private final Context context;
+    private volatile boolean sticky;
+    private volatile Intent lastIntent;
+    private boolean unregistrationPending;
+    private long unregistrationRequestedAt;
+
+    private SharedReceiver(final String action, final Context context) {
+      this.action = action;
+      this.context = context;
+    }
+
+    @Override public void onReceive(final Context context, final Intent intent) {
+      final boolean initialSticky = isInitialStickyBroadcast();
+      if (initialSticky) {
+        sticky = true;
+      }
+      lastIntent = intent;
+      ReactiveWifi.getMetrics().onBroadcastReceived(intent.getAction());
+      ReactiveWifi.getConnectionInfoCache().onBroadcastReceived(intent.getAction());
+      replaying = initialSticky;
+      try {
+        for (BroadcastReceiver receiver : receivers) {
+          receiver.onReceive(context, intent);
+        }
+      } finally {
+        replaying = false;
+      }
+    }
+  }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivewifi;
+
+import java.util.Arrays;
+
+/**
+ * BssidSlots assigns BSSIDs packed into longs to a fixed number of slots,
+ * so per Access Point state can be kept in preallocated arrays of primitives.
+ * When all slots are taken, the least recently used one is reassigned.
+ * Lookups use open addressing with linear probing and don't allocate.
+ */
+final class BssidSlots {
+  private final long[] bssids;
+  private final long[] lastUse;
+  private final int[] table;
+  private final int mask;
+  private int size;
+  private long clock;
+
+  BssidSlots(final int maxSlots) {
+    if (maxSlots <= 0) {
+      throw new IllegalArgumentException("maxSlots has to be greater than zero");
+    }
+    final int tableSize = Integer.highestOneBit(Math.max(1, maxSlots * 2 - 1)) << 1;
+    this.bssids = new long[maxSlots];
+    this.lastUse = new long[maxSlots];
+    this.table = new int[tableSize];
+    this.mask = tableSize - 1;
+  }
+
+  /**
+   * Finds slot of the BSSID and marks it as recently used
+   *
+   * @param bssid packed into long
+   * @return slot or -1 if BSSID has no slot assigned
+   */
+  int find(final long bssid) {
+    for (int i = hash(bssid) & mask; table[i] != 0; i = (i + 1) & mask) {
+      final int slot = table[i] - 1;
+      if (bssids[slot] == bssid) {
+        lastUse[slot] = ++clock;
+        return slot;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Assigns slot to the BSSID, which has no slot yet. When all slots are taken,
+   * the least recently used slot is reassigned, so its state has to be reset by the caller.
+   *
+   * @param bssid packed into long
+   * @return assigned slot
+   */
+  int insert(final long bssid) {
+    final int slot;
+    if (size < bssids.length) {
+      slot = size++;
+    } else {
+      slot = leastRecentlyUsed();
+      remove(bssids[slot]);
+    }
+
+    bssids[slot] = bssid;
+    lastUse[slot] = ++clock;
+
+    int i = hash(bssid) & mask;
+    while (table[i] != 0) {
+      i = (i + 1) & mask;
+    }
+    table[i] = slot + 1;
+    return slot;
+  }
+
+  /**
+   * Releases all slots
+   */
+  void clear() {
+    Arrays.fill(table, 0);
+    size = 0;
+  }
+
+  /**
+   * Returns number of assigned slots. Slots are assigned starting from 0.
+   *
+   * @return number of assigned slots
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Returns BSSID assigned to the slot
+   *
+   * @param slot lower than size()
+   * @return BSSID packed into long
+   */
+  long getBssid(final int slot) {
+    return bssids[slot];
+  }
+
+  private int leastRecentlyUsed() {
+    int leastRecentlyUsed = 0;
+    for (int slot = 1; slot < size; slot++) {
+      if (lastUse[slot] < lastUse[leastRecentlyUsed]) {
+        leastRecentlyUsed = slot;
+      }
+    }
+    return leastRecentlyUsed;
+  }
+
+  private void remove(final long bssid) {
+    int i = hash(bssid) & mask;
+    while (bssids[table[i] - 1] != bssid) {
+      i = (i + 1) & mask;
+    }
+    table[i] = 0;
+
+    // shifts back entries, which would become unreachable after removal
+    for (int j = (i + 1) & mask; table[j] != 0; j = (j + 1) & mask) {
+      final int home = hash(bssids[table[j] - 1]) & mask;
+      final boolean reachable = i <= j ? (i < home && home <= j) : (i < home || home <= j);
+      if (!reachable) {
+        table[i] = table[j];
+        table[j] = 0;
+        i = j;
+      }
+    }
+  }
+
+  private static int hash(final long bssid) {
+    final int hash = (int) (bssid ^ (bssid >>> 32)) * 0x9e3779b9;
+    return hash ^ (hash >>> 16);
+  }
+}
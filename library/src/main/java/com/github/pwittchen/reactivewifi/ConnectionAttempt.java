@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivewifi;
+
+import java.util.Arrays;
+
+/**
+ * ConnectionAttempt contains timing of the single attempt to connect with the Access Point
+ * measured from WPA supplicant state transitions
+ */
+public final class ConnectionAttempt {
+  public static final int NO_ERROR = -1;
+  public final ConnectionAttemptResult result;
+  public final String bssid;
+  public final long startTimestamp;
+  public final long durationNanos;
+  public final ConnectionPhase lastPhase;
+  public final int loops;
+  public final int supplicantError;
+  private final long[] phaseDurations;
+
+  /**
+   * Creates connection attempt
+   *
+   * @param result of the attempt
+   * @param bssid of the Access Point, which is known only for completed attempts
+   * @param startTimestamp of the first phase in nanoseconds since boot
+   * @param durationNanos from the start until completion or failure in nanoseconds
+   * @param lastPhase the latest phase reached before the attempt ended
+   * @param loops number of times WPA supplicant went back to an earlier phase
+   * @param supplicantError error reported by WPA supplicant
+   * (e.g. WifiManager.ERROR_AUTHENTICATING) or NO_ERROR
+   * @param phaseDurations time spent in each phase in nanoseconds indexed by phase ordinal
+   */
+  public ConnectionAttempt(final ConnectionAttemptResult result, final String bssid,
+      final long startTimestamp, final long durationNanos, final ConnectionPhase lastPhase,
+      final int loops, final int supplicantError, final long[] phaseDurations) {
+    if (phaseDurations.length != ConnectionPhase.values().length) {
+      throw new IllegalArgumentException("phaseDurations has to contain duration of each phase");
+    }
+    this.result = result;
+    this.bssid = bssid;
+    this.startTimestamp = startTimestamp;
+    this.durationNanos = durationNanos;
+    this.lastPhase = lastPhase;
+    this.loops = loops;
+    this.supplicantError = supplicantError;
+    this.phaseDurations = phaseDurations.clone();
+  }
+
+  /**
+   * Returns time spent in the phase. When the attempt looped, time of all visits is summed.
+   *
+   * @param phase of establishing connection
+   * @return duration in nanoseconds
+   */
+  public long getPhaseDuration(final ConnectionPhase phase) {
+    return phaseDurations[phase.ordinal()];
+  }
+
+  @Override public String toString() {
+    return "ConnectionAttempt{" + "result=" + result + ", bssid='" + bssid + '\''
+        + ", startTimestamp=" + startTimestamp + ", durationNanos=" + durationNanos
+        + ", lastPhase=" + lastPhase + ", loops=" + loops + ", supplicantError="
+        + supplicantError + ", phaseDurations=" + Arrays.toString(phaseDurations) + '}';
+  }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivewifi;
+
+/**
+ * Result of the connection attempt.
+ * COMPLETED means that WPA supplicant has completed the connection.
+ * FAILED means that the attempt ended with disconnection before it was completed.
+ * LOOPED means that WPA supplicant went back to earlier phases too many times
+ * without completing the connection, so the attempt was given up and the next one started.
+ */
+public enum ConnectionAttemptResult {
+  COMPLETED("completed"),
+  FAILED("failed"),
+  LOOPED("looped");
+
+  public final String description;
+
+  ConnectionAttemptResult(final String description) {
+    this.description = description;
+  }
+
+  @Override public String toString() {
+    return "ConnectionAttemptResult{" + "description='" + description + '\'' + '}';
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivewifi;
+
+import android.net.wifi.SupplicantState;
+
+/**
+ * ConnectionAttemptTracker measures connection attempts from WPA supplicant state transitions.
+ * An attempt starts when WPA supplicant enters scanning, authenticating or associating phase,
+ * so key renewals (handshakes started from COMPLETED state) are not treated as attempts.
+ * Time between consecutive transitions is added to the phase the supplicant was in.
+ * The attempt ends when the connection is completed, lost or when WPA supplicant went back
+ * to an earlier phase maxLoops times. Phase durations are kept in preallocated array,
+ * so transitions don't allocate until the attempt ends.
+ * This class is not thread-safe.
+ */
+final class ConnectionAttemptTracker {
+  static final int DEFAULT_MAX_LOOPS = 3;
+  private final int maxLoops;
+  private final long[] phaseDurations = new long[ConnectionPhase.values().length];
+  private boolean attempting;
+  private long startTimestamp;
+  private long phaseTimestamp;
+  private ConnectionPhase phase;
+  private int loops;
+  private int supplicantError = ConnectionAttempt.NO_ERROR;
+
+  ConnectionAttemptTracker(final int maxLoops) {
+    if (maxLoops <= 0) {
+      throw new IllegalArgumentException("maxLoops has to be greater than zero");
+    }
+    this.maxLoops = maxLoops;
+  }
+
+  /**
+   * Handles transition of WPA supplicant
+   *
+   * @param timestamp of the transition in nanoseconds
+   * @param state new state of WPA supplicant
+   * @param supplicantError error reported with the transition or ConnectionAttempt.NO_ERROR
+   * @param bssid of the connected Access Point, which is needed only for COMPLETED state
+   * @return ConnectionAttempt, which ended with the transition or null
+   */
+  ConnectionAttempt onStateChanged(final long timestamp, final SupplicantState state,
+      final int supplicantError, final String bssid) {
+    final ConnectionPhase nextPhase = ConnectionPhase.fromState(state);
+
+    if (!attempting) {
+      if (nextPhase != null && nextPhase.compareTo(ConnectionPhase.ASSOCIATING) <= 0) {
+        start(timestamp, nextPhase);
+      }
+      return null;
+    }
+
+    if (supplicantError != ConnectionAttempt.NO_ERROR) {
+      this.supplicantError = supplicantError;
+    }
+    phaseDurations[phase.ordinal()] += Math.max(0, timestamp - phaseTimestamp);
+    phaseTimestamp = timestamp;
+
+    if (nextPhase != null) {
+      if (nextPhase.compareTo(phase) < 0 && ++loops >= maxLoops) {
+        final ConnectionAttempt attempt = finish(ConnectionAttemptResult.LOOPED, timestamp, null);
+        start(timestamp, nextPhase);
+        return attempt;
+      }
+      phase = nextPhase;
+      return null;
+    }
+
+    switch (state) {
+      case COMPLETED:
+        return finish(ConnectionAttemptResult.COMPLETED, timestamp, bssid);
+      case DISCONNECTED:
+      case INACTIVE:
+      case INTERFACE_DISABLED:
+      case DORMANT:
+      case UNINITIALIZED:
+        return finish(ConnectionAttemptResult.FAILED, timestamp, null);
+      default:
+        return null;
+    }
+  }
+
+  private void start(final long timestamp, final ConnectionPhase phase) {
+    attempting = true;
+    startTimestamp = timestamp;
+    phaseTimestamp = timestamp;
+    this.phase = phase;
+    loops = 0;
+    supplicantError = ConnectionAttempt.NO_ERROR;
+    for (int i = 0; i < phaseDurations.length; i++) {
+      phaseDurations[i] = 0;
+    }
+  }
+
+  private ConnectionAttempt finish(final ConnectionAttemptResult result, final long timestamp,
+      final String bssid) {
+    attempting = false;
+    return new ConnectionAttempt(result, bssid, startTimestamp,
+        Math.max(0, timestamp - startTimestamp), phase, loops, supplicantError, phaseDurations);
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivewifi;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.net.wifi.WifiInfo;
+import android.net.wifi.WifiManager;
+import android.os.SystemClock;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ConnectionInfoCache keeps WifiInfo read from WifiManager for a short time, so receivers
+ * handling the same broadcast or bursts of broadcasts and external readers share
+ * a single binder call. WifiInfo is cached only while any receiver reading it is subscribed,
+ * because the cache observes supplicant and network state broadcasts through the hub
+ * only then. WifiInfo is read again when TTL has expired or when one of these broadcasts
+ * has invalidated the cache. Concurrent readers of expired WifiInfo wait for a single read.
+ * This class is thread-safe.
+ */
+final class ConnectionInfoCache {
+  static final long DEFAULT_TTL_MS = 500;
+  private static final String[] INVALIDATING_ACTIONS = {
+      WifiManager.SUPPLICANT_STATE_CHANGED_ACTION, WifiManager.NETWORK_STATE_CHANGED_ACTION
+  };
+  private final BroadcastReceiver invalidatingReceiver = new BroadcastReceiver() {
+    @Override public void onReceive(final Context context, final Intent intent) {
+      // the hub invalidates the cache before the broadcast is passed to any receiver
+    }
+  };
+  private long ttlNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_TTL_MS);
+  private WifiInfo wifiInfo;
+  private long readTimestamp;
+  private BroadcastReceiverHub hub;
+  private volatile int users;
+
+  /**
+   * Sets time for which WifiInfo is reused
+   *
+   * @param ttl time to live, where 0 disables caching
+   * @param unit of ttl
+   */
+  synchronized void setTtl(final long ttl, final TimeUnit unit) {
+    if (ttl < 0) {
+      throw new IllegalArgumentException("ttl cannot be negative");
+    }
+    ttlNanos = unit.toNanos(ttl);
+    wifiInfo = null;
+  }
+
+  /**
+   * Starts caching WifiInfo for the receiver, which reads it, and subscribes the cache
+   * to broadcasts invalidating it, when the receiver is the first one
+   *
+   * @param context Context of the activity or an application
+   * @param hub used for subscribing to broadcasts
+   */
+  void acquire(final Context context, final BroadcastReceiverHub hub) {
+    synchronized (invalidatingReceiver) {
+      if (users++ == 0) {
+        this.hub = hub;
+        invalidate();
+        hub.register(context, invalidatingReceiver, INVALIDATING_ACTIONS);
+      }
+    }
+  }
+
+  /**
+   * Stops caching WifiInfo for the receiver, which has been unsubscribed,
+   * and unsubscribes the cache from broadcasts, when the receiver is the last one
+   */
+  void release() {
+    synchronized (invalidatingReceiver) {
+      if (--users == 0) {
+        hub.unregister(invalidatingReceiver, INVALIDATING_ACTIONS);
+        hub = null;
+        invalidate();
+      }
+    }
+  }
+
+  /**
+   * Returns cached WifiInfo or reads it from WifiManager when it's expired
+   * or when no receiver reading it is subscribed
+   *
+   * @param wifiManager used for reading connection info
+   * @return WifiInfo
+   */
+  synchronized WifiInfo get(final WifiManager wifiManager) {
+    if (users == 0) {
+      return ReactiveWifi.readConnectionInfo(wifiManager);
+    }
+    final long now = SystemClock.elapsedRealtimeNanos();
+    if (wifiInfo == null || now - readTimestamp >= ttlNanos) {
+      wifiInfo = ReactiveWifi.readConnectionInfo(wifiManager);
+      readTimestamp = now;
+    }
+    return wifiInfo;
+  }
+
+  synchronized void invalidate() {
+    wifiInfo = null;
+  }
+
+  /**
+   * Invalidates the cache, when the broadcast may change connection info.
+   * It's called before the broadcast is passed to receivers, so they read fresh WifiInfo.
+   *
+   * @param action of the broadcast
+   */
+  void onBroadcastReceived(final String action) {
+    if (WifiManager.SUPPLICANT_STATE_CHANGED_ACTION.equals(action)
+        || WifiManager.NETWORK_STATE_CHANGED_ACTION.equals(action)) {
+      invalidate();
+    }
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivewifi;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ConnectionLatencies keeps histograms of durations of completed connection attempts
+ * for each Access Point. Number of tracked Access Points is bounded, so memory usage
+ * is constant. When the limit is reached, histogram of the least recently connected
+ * Access Point is dropped. This class is thread-safe.
+ */
+public final class ConnectionLatencies {
+  public static final int DEFAULT_MAX_ACCESS_POINTS = 32;
+  private final BssidSlots slots;
+  private final LatencyHistogram[] histograms;
+
+  /**
+   * Creates ConnectionLatencies tracking up to DEFAULT_MAX_ACCESS_POINTS Access Points
+   */
+  public ConnectionLatencies() {
+    this(DEFAULT_MAX_ACCESS_POINTS);
+  }
+
+  /**
+   * Creates ConnectionLatencies
+   *
+   * @param maxAccessPoints max number of tracked Access Points
+   */
+  public ConnectionLatencies(final int maxAccessPoints) {
+    this.slots = new BssidSlots(maxAccessPoints);
+    this.histograms = new LatencyHistogram[maxAccessPoints];
+  }
+
+  /**
+   * Records duration of the completed connection attempt. Other attempts are ignored.
+   *
+   * @param attempt of connection with the Access Point
+   */
+  public synchronized void record(final ConnectionAttempt attempt) {
+    if (attempt.result != ConnectionAttemptResult.COMPLETED || attempt.bssid == null) {
+      return;
+    }
+
+    final long bssid = WifiScanSnapshot.packBssid(attempt.bssid);
+    if (bssid == WifiScanSnapshot.INVALID_BSSID) {
+      return;
+    }
+
+    int slot = slots.find(bssid);
+    if (slot < 0) {
+      slot = slots.insert(bssid);
+      // histogram could be held by a reader, so it's replaced instead of reset
+      histograms[slot] = new LatencyHistogram();
+    }
+    histograms[slot].record(attempt.durationNanos);
+  }
+
+  /**
+   * Returns histogram of connection durations of the Access Point
+   *
+   * @param bssid of the Access Point
+   * @return LatencyHistogram with durations in nanoseconds or null if no attempt
+   * was recorded for the Access Point
+   */
+  public synchronized LatencyHistogram getHistogram(final String bssid) {
+    final int slot = slots.find(WifiScanSnapshot.packBssid(bssid));
+    return slot < 0 ? null : histograms[slot];
+  }
+
+  /**
+   * Returns BSSIDs of the tracked Access Points
+   *
+   * @return list of BSSIDs
+   */
+  public synchronized List<String> getBssids() {
+    final List<String> bssids = new ArrayList<>(slots.size());
+    for (int slot = 0; slot < slots.size(); slot++) {
+      bssids.add(WifiScanSnapshot.unpackBssid(slots.getBssid(slot)));
+    }
+    return bssids;
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivewifi;
+
+import android.net.wifi.SupplicantState;
+
+/**
+ * Phase of establishing connection with the Access Point, which is passed by
+ * WPA supplicant before the connection is completed. ASSOCIATING phase includes
+ * time spent in ASSOCIATED state waiting for the 4-way handshake.
+ */
+public enum ConnectionPhase {
+  SCANNING("scanning"),
+  AUTHENTICATING("authenticating"),
+  ASSOCIATING("associating"),
+  FOUR_WAY_HANDSHAKE("4-way handshake"),
+  GROUP_HANDSHAKE("group handshake");
+
+  public final String description;
+
+  ConnectionPhase(final String description) {
+    this.description = description;
+  }
+
+  /**
+   * Gets ConnectionPhase of the WPA supplicant state
+   *
+   * @param state of WPA supplicant
+   * @return ConnectionPhase or null if the state is not a phase of establishing connection
+   */
+  public static ConnectionPhase fromState(final SupplicantState state) {
+    if (state == null) {
+      return null;
+    }
+    switch (state) {
+      case SCANNING:
+        return SCANNING;
+      case AUTHENTICATING:
+        return AUTHENTICATING;
+      case ASSOCIATING:
+      case ASSOCIATED:
+        return ASSOCIATING;
+      case FOUR_WAY_HANDSHAKE:
+        return FOUR_WAY_HANDSHAKE;
+      case GROUP_HANDSHAKE:
+        return GROUP_HANDSHAKE;
+      default:
+        return null;
+    }
+  }
+
+  @Override public String toString() {
+    return "ConnectionPhase{" + "description='" + description + '\'' + '}';
+  }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivewifi;
+
+import io.reactivex.Observable;
+import io.reactivex.ObservableSource;
+import io.reactivex.ObservableTransformer;
+import io.reactivex.functions.Function;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.Callable;
+
+/**
+ * FingerprintMatcher estimates location of the WiFi scan with weighted k nearest neighbors
+ * among fingerprints from FingerprintStore. Distance between the scan and a fingerprint
+ * is Euclidean distance of RSSI, where Access Points missing on either side have
+ * MISSING_RSSI. It's computed as a precomputed cost of the fingerprint corrected only
+ * for Access Points seen in the scan, so only reference points found in the inverted index
+ * of these Access Points are visited. Estimated position is an average of k nearest points
+ * weighted by inverse of their distance. Matcher reuses its buffers, so it's not thread-safe.
+ */
+public final class FingerprintMatcher {
+  private static final double MIN_DISTANCE = 1e-3;
+  private final FingerprintStore store;
+  private final int k;
+  private final int[] pointGenerations;
+  private final int[] pointCorrections;
+  private final int[] touchedPoints;
+  private final int[] accessPointGenerations;
+  private final int[] neighborPoints;
+  private final int[] neighborCosts;
+  private final double[] floorWeights;
+  private int generation;
+
+  /**
+   * Creates matcher
+   *
+   * @param store with fingerprints of reference points
+   * @param k number of nearest reference points used for the estimate
+   */
+  public FingerprintMatcher(final FingerprintStore store, final int k) {
+    if (k <= 0) {
+      throw new IllegalArgumentException("k has to be greater than zero");
+    }
+    this.store = store;
+    this.k = k;
+    this.pointGenerations = new int[store.size()];
+    this.pointCorrections = new int[store.size()];
+    this.touchedPoints = new int[store.size()];
+    this.accessPointGenerations = new int[store.getAccessPointCount()];
+    this.neighborPoints = new int[k];
+    this.neighborCosts = new int[k];
+    this.floorWeights = new double[k];
+  }
+
+  /**
+   * Creates RxJava transformer turning stream of WiFi scan snapshots into stream
+   * of location estimates. Each subscription gets its own matcher. Scans without any
+   * Access Point from the store are skipped.
+   *
+   * @param store with fingerprints of reference points
+   * @param k number of nearest reference points used for the estimate
+   * @return RxJava transformer emitting LocationEstimates
+   */
+  public static ObservableTransformer<WifiScanSnapshot, LocationEstimate> locate(
+      final FingerprintStore store, final int k) {
+    if (k <= 0) {
+      throw new IllegalArgumentException("k has to be greater than zero");
+    }
+    return new ObservableTransformer<WifiScanSnapshot, LocationEstimate>() {
+      @Override public ObservableSource<LocationEstimate> apply(
+          final Observable<WifiScanSnapshot> upstream) {
+        return Observable.defer(new Callable<ObservableSource<LocationEstimate>>() {
+          @Override public ObservableSource<LocationEstimate> call() throws Exception {
+            final FingerprintMatcher matcher = new FingerprintMatcher(store, k);
+            return upstream.concatMapIterable(
+                new Function<WifiScanSnapshot, Iterable<LocationEstimate>>() {
+                  @Override public Iterable<LocationEstimate> apply(WifiScanSnapshot scan) {
+                    final LocationEstimate estimate = matcher.match(scan);
+                    return estimate != null ? Collections.singletonList(estimate)
+                        : Collections.<LocationEstimate>emptyList();
+                  }
+                });
+          }
+        });
+      }
+    };
+  }
+
+  /**
+   * Estimates location of the scan
+   *
+   * @param scan WiFi scan done at unknown location
+   * @return LocationEstimate or null if no Access Point from the scan is in the store
+   */
+  public LocationEstimate match(final WifiScanSnapshot scan) {
+    nextGeneration();
+    int scanCost = 0;
+    int touchedCount = 0;
+
+    for (int i = 0; i < scan.size(); i++) {
+      final int rssi = FingerprintStore.clampRssi(scan.getRssi(i)) - FingerprintStore.MISSING_RSSI;
+      final int accessPoint = store.findAccessPoint(scan.getBssid(i));
+      if (accessPoint >= 0) {
+        if (accessPointGenerations[accessPoint] == generation) {
+          continue;
+        }
+        accessPointGenerations[accessPoint] = generation;
+      }
+      scanCost += rssi * rssi;
+      if (accessPoint < 0) {
+        continue;
+      }
+
+      // (scan - fingerprint)^2 replaces (scan - missing)^2 + (fingerprint - missing)^2
+      for (int j = store.accessPointOffsets[accessPoint];
+          j < store.accessPointOffsets[accessPoint + 1]; j++) {
+        final int point = store.accessPointPoints[j];
+        if (pointGenerations[point] != generation) {
+          pointGenerations[point] = generation;
+          pointCorrections[point] = 0;
+          touchedPoints[touchedCount++] = point;
+        }
+        pointCorrections[point] -=
+            2 * rssi * (store.accessPointRssis[j] - FingerprintStore.MISSING_RSSI);
+      }
+    }
+
+    if (touchedCount == 0) {
+      return null;
+    }
+
+    int neighbors = 0;
+    for (int i = 0; i < touchedCount; i++) {
+      final int point = touchedPoints[i];
+      final int cost = store.baseCosts[point] + scanCost + pointCorrections[point];
+      if (neighbors == k && cost >= neighborCosts[k - 1]) {
+        continue;
+      }
+      int position = neighbors < k ? neighbors++ : k - 1;
+      while (position > 0 && neighborCosts[position - 1] > cost) {
+        neighborCosts[position] = neighborCosts[position - 1];
+        neighborPoints[position] = neighborPoints[position - 1];
+        position--;
+      }
+      neighborCosts[position] = cost;
+      neighborPoints[position] = point;
+    }
+
+    return estimate(neighbors);
+  }
+
+  private LocationEstimate estimate(final int neighbors) {
+    double x = 0;
+    double y = 0;
+    double weightSum = 0;
+    int floor = store.floors[neighborPoints[0]];
+    double floorWeight = 0;
+    for (int i = 0; i < neighbors; i++) {
+      final int point = neighborPoints[i];
+      final double weight = 1.0 / Math.max(MIN_DISTANCE, Math.sqrt(neighborCosts[i]));
+      x += weight * store.xs[point];
+      y += weight * store.ys[point];
+      weightSum += weight;
+
+      // floor is chosen by weighted vote of neighbors
+      floorWeights[i] = weight;
+      for (int j = 0; j < i; j++) {
+        if (store.floors[neighborPoints[j]] == store.floors[point]) {
+          floorWeights[j] += weight;
+          floorWeights[i] = 0;
+          break;
+        }
+      }
+    }
+    for (int i = 0; i < neighbors; i++) {
+      if (floorWeights[i] > floorWeight) {
+        floorWeight = floorWeights[i];
+        floor = store.floors[neighborPoints[i]];
+      }
+    }
+
+    return new LocationEstimate((float) (x / weightSum), (float) (y / weightSum), floor,
+        Math.sqrt(neighborCosts[0]), neighbors);
+  }
+
+  private void nextGeneration() {
+    if (++generation == Integer.MAX_VALUE) {
+      Arrays.fill(pointGenerations, 0);
+      Arrays.fill(accessPointGenerations, 0);
+      generation = 1;
+    }
+  }
+}
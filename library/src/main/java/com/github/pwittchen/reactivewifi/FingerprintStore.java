@@ -0,0 +1,418 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivewifi;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * FingerprintStore keeps WiFi fingerprints of reference points used for indoor positioning.
+ * Each reference point has a position, a floor and RSSI of Access Points measured there.
+ * Fingerprints are kept in arrays of primitives: RSSI of each point in a compact row
+ * and an inverted index listing points, where each Access Point was seen, so matching
+ * a scan touches only points sharing at least one Access Point with it.
+ * Store is immutable, so it can be shared between threads and matchers.
+ * It can be written into a compact binary file and read from it.
+ */
+public final class FingerprintStore {
+  static final int MAGIC = 0x52574650;
+  static final int VERSION = 1;
+
+  /**
+   * RSSI assumed for Access Points, which were not seen in a scan or a fingerprint
+   */
+  public static final int MISSING_RSSI = -100;
+
+  final float[] xs;
+  final float[] ys;
+  final int[] floors;
+  final int[] pointOffsets;
+  final int[] pointAccessPoints;
+  final byte[] pointRssis;
+  final int[] baseCosts;
+  final long[] bssids;
+  final int[] accessPointOffsets;
+  final int[] accessPointPoints;
+  final byte[] accessPointRssis;
+  private final long[] tableKeys;
+  private final int[] tableValues;
+  private final int mask;
+
+  private FingerprintStore(final float[] xs, final float[] ys, final int[] floors,
+      final int[] pointOffsets, final int[] pointAccessPoints, final byte[] pointRssis,
+      final long[] bssids) {
+    this.xs = xs;
+    this.ys = ys;
+    this.floors = floors;
+    this.pointOffsets = pointOffsets;
+    this.pointAccessPoints = pointAccessPoints;
+    this.pointRssis = pointRssis;
+    this.bssids = bssids;
+
+    final int tableSize = Integer.highestOneBit(Math.max(1, bssids.length * 2 - 1)) << 1;
+    this.tableKeys = new long[tableSize];
+    this.tableValues = new int[tableSize];
+    this.mask = tableSize - 1;
+    for (int accessPoint = 0; accessPoint < bssids.length; accessPoint++) {
+      int i = hash(bssids[accessPoint]) & mask;
+      while (tableValues[i] != 0) {
+        i = (i + 1) & mask;
+      }
+      tableKeys[i] = bssids[accessPoint];
+      tableValues[i] = accessPoint + 1;
+    }
+
+    // cost of the point, when none of its Access Points is seen in the scan
+    this.baseCosts = new int[xs.length];
+    for (int point = 0; point < xs.length; point++) {
+      for (int i = pointOffsets[point]; i < pointOffsets[point + 1]; i++) {
+        final int difference = pointRssis[i] - MISSING_RSSI;
+        baseCosts[point] += difference * difference;
+      }
+    }
+
+    // inverted index is built with counting sort of fingerprint entries by Access Point
+    this.accessPointOffsets = new int[bssids.length + 1];
+    for (int i = 0; i < pointAccessPoints.length; i++) {
+      accessPointOffsets[pointAccessPoints[i] + 1]++;
+    }
+    for (int accessPoint = 0; accessPoint < bssids.length; accessPoint++) {
+      accessPointOffsets[accessPoint + 1] += accessPointOffsets[accessPoint];
+    }
+    this.accessPointPoints = new int[pointAccessPoints.length];
+    this.accessPointRssis = new byte[pointAccessPoints.length];
+    final int[] positions = Arrays.copyOf(accessPointOffsets, bssids.length);
+    for (int point = 0; point < xs.length; point++) {
+      for (int i = pointOffsets[point]; i < pointOffsets[point + 1]; i++) {
+        final int position = positions[pointAccessPoints[i]]++;
+        accessPointPoints[position] = point;
+        accessPointRssis[position] = pointRssis[i];
+      }
+    }
+  }
+
+  /**
+   * Returns number of reference points in the store
+   *
+   * @return number of reference points
+   */
+  public int size() {
+    return xs.length;
+  }
+
+  /**
+   * Returns number of distinct Access Points seen in all fingerprints
+   *
+   * @return number of Access Points
+   */
+  public int getAccessPointCount() {
+    return bssids.length;
+  }
+
+  /**
+   * Finds index of the Access Point in the store
+   *
+   * @param bssid packed into long
+   * @return index of the Access Point or -1 if it's not in any fingerprint
+   */
+  int findAccessPoint(final long bssid) {
+    for (int i = hash(bssid) & mask; tableValues[i] != 0; i = (i + 1) & mask) {
+      if (tableKeys[i] == bssid) {
+        return tableValues[i] - 1;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Reads store written with write(OutputStream) method and closes the stream
+   *
+   * @param inputStream stream containing fingerprints
+   * @return FingerprintStore
+   * @throws IOException when fingerprints can't be read or stream doesn't contain them
+   */
+  public static FingerprintStore read(final InputStream inputStream) throws IOException {
+    try (DataInputStream input = new DataInputStream(new BufferedInputStream(inputStream))) {
+      if (input.readInt() != MAGIC) {
+        throw new IOException("stream doesn't contain WiFi fingerprints");
+      }
+      final int version = input.readInt();
+      if (version != VERSION) {
+        throw new IOException("version " + version + " of WiFi fingerprints is not supported");
+      }
+
+      final int pointCount = input.readInt();
+      final int accessPointCount = input.readInt();
+      final int entryCount = input.readInt();
+      if (pointCount < 0 || accessPointCount < 0 || entryCount < 0) {
+        throw new IOException("WiFi fingerprints are corrupted");
+      }
+
+      final long[] bssids = new long[accessPointCount];
+      for (int i = 0; i < accessPointCount; i++) {
+        bssids[i] = input.readLong();
+      }
+
+      final float[] xs = new float[pointCount];
+      final float[] ys = new float[pointCount];
+      final int[] floors = new int[pointCount];
+      final int[] pointOffsets = new int[pointCount + 1];
+      final int[] pointAccessPoints = new int[entryCount];
+      final byte[] pointRssis = new byte[entryCount];
+      for (int point = 0; point < pointCount; point++) {
+        xs[point] = input.readFloat();
+        ys[point] = input.readFloat();
+        floors[point] = input.readShort();
+        final int start = pointOffsets[point];
+        final int end = start + input.readUnsignedShort();
+        if (end > entryCount) {
+          throw new IOException("WiFi fingerprints are corrupted");
+        }
+        // Access Points of the point are sorted, so they're written as deltas
+        int accessPoint = 0;
+        for (int i = start; i < end; i++) {
+          accessPoint += readVarInt(input);
+          if (accessPoint >= accessPointCount) {
+            throw new IOException("WiFi fingerprints are corrupted");
+          }
+          pointAccessPoints[i] = accessPoint;
+        }
+        input.readFully(pointRssis, start, end - start);
+        pointOffsets[point + 1] = end;
+      }
+
+      if (pointOffsets[pointCount] != entryCount) {
+        throw new IOException("WiFi fingerprints are corrupted");
+      }
+      return new FingerprintStore(xs, ys, floors, pointOffsets, pointAccessPoints, pointRssis,
+          bssids);
+    }
+  }
+
+  /**
+   * Writes store into a compact binary format and closes the stream. Fingerprint of each point
+   * takes a few bytes per Access Point, because Access Points are written as varint deltas
+   * and RSSI as a single byte.
+   *
+   * @param outputStream stream, which will be closed after writing
+   * @throws IOException when fingerprints can't be written
+   */
+  public void write(final OutputStream outputStream) throws IOException {
+    try (DataOutputStream output =
+             new DataOutputStream(new BufferedOutputStream(outputStream))) {
+      output.writeInt(MAGIC);
+      output.writeInt(VERSION);
+      output.writeInt(xs.length);
+      output.writeInt(bssids.length);
+      output.writeInt(pointAccessPoints.length);
+      for (long bssid : bssids) {
+        output.writeLong(bssid);
+      }
+      for (int point = 0; point < xs.length; point++) {
+        final int start = pointOffsets[point];
+        final int end = pointOffsets[point + 1];
+        output.writeFloat(xs[point]);
+        output.writeFloat(ys[point]);
+        output.writeShort(floors[point]);
+        output.writeShort(end - start);
+        int previous = 0;
+        for (int i = start; i < end; i++) {
+          writeVarInt(output, pointAccessPoints[i] - previous);
+          previous = pointAccessPoints[i];
+        }
+        output.write(pointRssis, start, end - start);
+      }
+    }
+  }
+
+  private static int readVarInt(final DataInputStream input) throws IOException {
+    int value = 0;
+    for (int shift = 0; shift < 32; shift += 7) {
+      final int octet = input.readUnsignedByte();
+      value |= (octet & 0x7f) << shift;
+      if ((octet & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IOException("WiFi fingerprints are corrupted");
+  }
+
+  private static void writeVarInt(final DataOutputStream output, int value)
+      throws IOException {
+    while ((value & ~0x7f) != 0) {
+      output.writeByte((value & 0x7f) | 0x80);
+      value >>>= 7;
+    }
+    output.writeByte(value);
+  }
+
+  static int clampRssi(final int rssi) {
+    return Math.max(MISSING_RSSI, Math.min(0, rssi));
+  }
+
+  private static int hash(final long bssid) {
+    final int hash = (int) (bssid ^ (bssid >>> 32)) * 0x9e3779b9;
+    return hash ^ (hash >>> 16);
+  }
+
+  /**
+   * Builder collecting fingerprints of reference points
+   */
+  public static final class Builder {
+    private static final int MAX_ACCESS_POINTS_PER_POINT = 0xffff;
+    private final Map<Long, Integer> accessPoints = new HashMap<>();
+    private float[] xs = new float[16];
+    private float[] ys = new float[16];
+    private int[] floors = new int[16];
+    private int[] pointOffsets = new int[17];
+    private int[] pointAccessPoints = new int[256];
+    private byte[] pointRssis = new byte[256];
+    private long[] bssids = new long[64];
+    private int pointCount;
+    private int entryCount;
+
+    /**
+     * Adds reference point with RSSI of Access Points measured there.
+     * RSSI is clamped to range from MISSING_RSSI to 0 dBm. When BSSID is repeated,
+     * its first RSSI is used. Invalid BSSIDs are ignored.
+     *
+     * @param x coordinate of the point, e.g. in meters
+     * @param y coordinate of the point, e.g. in meters
+     * @param floor of the point
+     * @param bssids of the Access Points packed into longs
+     * @param rssis of the Access Points in dBm
+     * @return Builder
+     */
+    public Builder addReferencePoint(final float x, final float y, final int floor,
+        final long[] bssids, final int[] rssis) {
+      if (bssids.length != rssis.length) {
+        throw new IllegalArgumentException("bssids and rssis have to have the same length");
+      }
+      if (floor < Short.MIN_VALUE || floor > Short.MAX_VALUE) {
+        throw new IllegalArgumentException("floor has to fit into short");
+      }
+
+      final int[] indices = new int[bssids.length];
+      final int[] rssiOfIndex = new int[bssids.length];
+      int count = 0;
+      for (int i = 0; i < bssids.length; i++) {
+        if (bssids[i] == WifiScanSnapshot.INVALID_BSSID) {
+          continue;
+        }
+        indices[count] = accessPoint(bssids[i]);
+        rssiOfIndex[count] = clampRssi(rssis[i]);
+        count++;
+      }
+      if (count > MAX_ACCESS_POINTS_PER_POINT) {
+        throw new IllegalArgumentException("reference point has too many Access Points");
+      }
+
+      ensurePointCapacity(pointCount + 1);
+      ensureEntryCapacity(entryCount + count);
+      xs[pointCount] = x;
+      ys[pointCount] = y;
+      floors[pointCount] = floor;
+
+      // entries are kept sorted by Access Point, so they can be written as deltas
+      final long[] sorted = new long[count];
+      for (int i = 0; i < count; i++) {
+        sorted[i] = ((long) indices[i] << 32) | i;
+      }
+      Arrays.sort(sorted);
+      int previousAccessPoint = -1;
+      for (int i = 0; i < count; i++) {
+        final int accessPoint = (int) (sorted[i] >>> 32);
+        if (accessPoint == previousAccessPoint) {
+          continue;
+        }
+        previousAccessPoint = accessPoint;
+        pointAccessPoints[entryCount] = accessPoint;
+        pointRssis[entryCount] = (byte) rssiOfIndex[(int) sorted[i]];
+        entryCount++;
+      }
+      pointCount++;
+      pointOffsets[pointCount] = entryCount;
+      return this;
+    }
+
+    /**
+     * Adds reference point with RSSI of Access Points from the scan done there
+     *
+     * @param x coordinate of the point, e.g. in meters
+     * @param y coordinate of the point, e.g. in meters
+     * @param floor of the point
+     * @param scan done at the point
+     * @return Builder
+     */
+    public Builder addReferencePoint(final float x, final float y, final int floor,
+        final WifiScanSnapshot scan) {
+      return addReferencePoint(x, y, floor, scan.bssids, scan.rssis);
+    }
+
+    /**
+     * Builds immutable store with fingerprints added so far
+     *
+     * @return FingerprintStore
+     */
+    public FingerprintStore build() {
+      return new FingerprintStore(Arrays.copyOf(xs, pointCount), Arrays.copyOf(ys, pointCount),
+          Arrays.copyOf(floors, pointCount), Arrays.copyOf(pointOffsets, pointCount + 1),
+          Arrays.copyOf(pointAccessPoints, entryCount), Arrays.copyOf(pointRssis, entryCount),
+          Arrays.copyOf(bssids, accessPoints.size()));
+    }
+
+    private int accessPoint(final long bssid) {
+      Integer accessPoint = accessPoints.get(bssid);
+      if (accessPoint == null) {
+        accessPoint = accessPoints.size();
+        if (accessPoint == bssids.length) {
+          bssids = Arrays.copyOf(bssids, accessPoint * 2);
+        }
+        bssids[accessPoint] = bssid;
+        accessPoints.put(bssid, accessPoint);
+      }
+      return accessPoint;
+    }
+
+    private void ensurePointCapacity(final int capacity) {
+      if (xs.length >= capacity) {
+        return;
+      }
+      final int newCapacity = Math.max(capacity, xs.length * 2);
+      xs = Arrays.copyOf(xs, newCapacity);
+      ys = Arrays.copyOf(ys, newCapacity);
+      floors = Arrays.copyOf(floors, newCapacity);
+      pointOffsets = Arrays.copyOf(pointOffsets, newCapacity + 1);
+    }
+
+    private void ensureEntryCapacity(final int capacity) {
+      if (pointAccessPoints.length >= capacity) {
+        return;
+      }
+      final int newCapacity = Math.max(capacity, pointAccessPoints.length * 2);
+      pointAccessPoints = Arrays.copyOf(pointAccessPoints, newCapacity);
+      pointRssis = Arrays.copyOf(pointRssis, newCapacity);
+    }
+  }
+}
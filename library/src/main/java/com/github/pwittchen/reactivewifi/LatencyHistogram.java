@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivewifi;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * LatencyHistogram counts durations in buckets with power of two upper bounds,
+ * so it uses constant memory and can be updated concurrently without locks.
+ * Percentiles are approximated with the upper bound of the bucket.
+ */
+public final class LatencyHistogram {
+  private static final int BUCKETS = 64;
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+  /**
+   * Records duration
+   *
+   * @param durationNanos duration in nanoseconds
+   */
+  public void record(final long durationNanos) {
+    counts.incrementAndGet(bucket(Math.max(durationNanos, 0)));
+  }
+
+  /**
+   * Returns number of recorded durations
+   *
+   * @return number of durations
+   */
+  public long getCount() {
+    long count = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      count += counts.get(i);
+    }
+    return count;
+  }
+
+  /**
+   * Returns approximated percentile of recorded durations
+   *
+   * @param percentile between 0 and 1, e.g. 0.99 for p99
+   * @return upper bound of the bucket containing percentile in nanoseconds
+   * or 0 if there are no durations
+   */
+  public long percentile(final double percentile) {
+    if (percentile < 0 || percentile > 1) {
+      throw new IllegalArgumentException("percentile has to be between 0 and 1");
+    }
+
+    final long[] snapshot = new long[BUCKETS];
+    long count = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      snapshot[i] = counts.get(i);
+      count += snapshot[i];
+    }
+
+    if (count == 0) {
+      return 0;
+    }
+
+    final long rank = Math.max(1, (long) Math.ceil(percentile * count));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += snapshot[i];
+      if (seen >= rank) {
+        return upperBound(i);
+      }
+    }
+    return upperBound(BUCKETS - 1);
+  }
+
+  /**
+   * Clears all recorded durations
+   */
+  public void reset() {
+    for (int i = 0; i < BUCKETS; i++) {
+      counts.set(i, 0);
+    }
+  }
+
+  private static int bucket(final long durationNanos) {
+    // bucket i contains durations up to 2^i - 1 nanoseconds
+    return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(durationNanos));
+  }
+
+  private static long upperBound(final int bucket) {
+    return bucket >= BUCKETS - 1 ? Long.MAX_VALUE : (1L << bucket) - 1;
+  }
+
+  @Override public String toString() {
+    return "LatencyHistogram{"
+        + "count=" + getCount()
+        + ", p50=" + percentile(0.5)
+        + ", p99=" + percentile(0.99)
+        + '}';
+  }
+}
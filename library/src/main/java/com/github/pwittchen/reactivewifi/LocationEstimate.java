@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivewifi;
+
+/**
+ * LocationEstimate is a position estimated by matching WiFi scan with fingerprints
+ * of reference points
+ */
+public final class LocationEstimate {
+  public final float x;
+  public final float y;
+  public final int floor;
+  public final double distance;
+  public final int neighbors;
+
+  /**
+   * Creates location estimate
+   *
+   * @param x coordinate in units of the reference points
+   * @param y coordinate in units of the reference points
+   * @param floor of the most similar reference points
+   * @param distance between RSSI of the scan and the nearest fingerprint in dB,
+   * which tells how similar the fingerprint is
+   * @param neighbors number of reference points used for the estimate
+   */
+  public LocationEstimate(final float x, final float y, final int floor, final double distance,
+      final int neighbors) {
+    this.x = x;
+    this.y = y;
+    this.floor = floor;
+    this.distance = distance;
+    this.neighbors = neighbors;
+  }
+
+  @Override public String toString() {
+    return "LocationEstimate{" + "x=" + x + ", y=" + y + ", floor=" + floor + ", distance="
+        + distance + ", neighbors=" + neighbors + '}';
+  }
+}
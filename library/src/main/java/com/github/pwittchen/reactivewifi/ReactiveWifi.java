@@ -19,25 +19,33 @@ import android.annotation.SuppressLint;
 import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
-import android.content.IntentFilter;
 import android.net.wifi.ScanResult;
 import android.net.wifi.SupplicantState;
 import android.net.wifi.WifiInfo;
 import android.net.wifi.WifiManager;
-import android.os.Looper;
+import android.os.Parcelable;
+import android.os.SystemClock;
 import android.util.Log;
 import androidx.annotation.NonNull;
 import androidx.annotation.RequiresPermission;
+import io.reactivex.Flowable;
+import io.reactivex.Maybe;
 import io.reactivex.Observable;
 import io.reactivex.ObservableEmitter;
 import io.reactivex.ObservableOnSubscribe;
+import io.reactivex.ObservableSource;
 import io.reactivex.Scheduler;
-import io.reactivex.android.schedulers.AndroidSchedulers;
 import io.reactivex.disposables.Disposable;
 import io.reactivex.disposables.Disposables;
-import io.reactivex.functions.Action;
+import io.reactivex.functions.Consumer;
 import io.reactivex.functions.Function;
+import io.reactivex.functions.Predicate;
+import io.reactivex.schedulers.Schedulers;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import static android.Manifest.permission.ACCESS_COARSE_LOCATION;
 import static android.Manifest.permission.ACCESS_FINE_LOCATION;
@@ -52,14 +60,86 @@ import static android.Manifest.permission.CHANGE_WIFI_STATE;
 public class ReactiveWifi {
 
   private final static String LOG_TAG = "ReactiveWifi";
+  private final static String SCAN_CACHE_THREAD_NAME = "ReactiveWifi-ScanCache";
+  private final static BroadcastReceiverHub MAIN_THREAD_HUB =
+      BroadcastReceiverHub.createForMainThread();
+  private final static ScanScheduler SCAN_SCHEDULER = new ScanScheduler();
+  private final static ConnectionInfoCache CONNECTION_INFO_CACHE = new ConnectionInfoCache();
+
+  private static volatile boolean backgroundDeliveryEnabled;
+  private static volatile ReactiveWifiMetrics metrics = ReactiveWifiMetrics.NO_OP;
 
   private ReactiveWifi() {
   }
 
+  /**
+   * Enables or disables delivering WiFi broadcasts on a background thread owned by the library.
+   * When it's enabled, BroadcastReceivers are registered with a background Handler,
+   * so blocking WifiManager calls and emissions of all Observables subscribed later
+   * don't happen on the main thread. It's disabled by default.
+   *
+   * @param enabled true if broadcasts should be delivered on a background thread
+   */
+  public static void setBackgroundDeliveryEnabled(final boolean enabled) {
+    backgroundDeliveryEnabled = enabled;
+  }
+
+  /**
+   * Sets metrics notified about broadcasts, emissions, scan requests and durations
+   * of blocking calls done by the library. Default metrics ignore all notifications.
+   *
+   * @param metrics implementation of ReactiveWifiMetrics, e.g. WifiMetricsRecorder
+   * or ReactiveWifiMetrics.NO_OP to disable metrics
+   */
+  public static void setMetrics(final ReactiveWifiMetrics metrics) {
+    if (metrics == null) {
+      throw new IllegalArgumentException("metrics can't be null");
+    }
+    ReactiveWifi.metrics = metrics;
+  }
+
+  static ReactiveWifiMetrics getMetrics() {
+    return metrics;
+  }
+
+  static ScanScheduler getScanScheduler() {
+    return SCAN_SCHEDULER;
+  }
+
+  /**
+   * Sets time for which information about the current WiFi connection is reused.
+   * While any Observable reading WifiInfo is subscribed, WifiInfo is shared by all Observables
+   * and readers of {@link #getConnectionInfo(Context)}, so bursts of broadcasts don't cause
+   * repeated WifiManager calls. Cached WifiInfo is dropped earlier, when supplicant or network
+   * state broadcast arrives.
+   * Default TTL is 500 milliseconds.
+   *
+   * @param ttl time to live, where 0 disables caching
+   * @param unit of ttl
+   */
+  public static void setConnectionInfoTtl(final long ttl, final TimeUnit unit) {
+    CONNECTION_INFO_CACHE.setTtl(ttl, unit);
+  }
+
+  /**
+   * Gets information about the current WiFi connection from the cache shared by the library.
+   * WifiInfo is read from WifiManager only when the cached one has expired
+   * (see {@link #setConnectionInfoTtl(long, TimeUnit)}) or when no Observable reading it
+   * is subscribed.
+   *
+   * @param context Context of the activity or an application
+   * @return WifiInfo or null if WifiManager is not available
+   */
+  @RequiresPermission(ACCESS_WIFI_STATE)
+  public static WifiInfo getConnectionInfo(final Context context) {
+    final WifiManager wifiManager = (WifiManager) context.getSystemService(Context.WIFI_SERVICE);
+    return wifiManager == null ? null : getConnectionInfo(wifiManager);
+  }
+
   /**
    * Observes WiFi Access Points.
    * Returns fresh list of Access Points
-   * whenever WiFi signal strength changes.
+   * whenever new scan results are available.
    *
    * @param context Context of the activity or an application
    * @return RxJava Observable with list of WiFi scan results
@@ -67,74 +147,270 @@ public class ReactiveWifi {
   @SuppressLint("MissingPermission") @RequiresPermission(allOf = {
       ACCESS_COARSE_LOCATION, ACCESS_FINE_LOCATION, CHANGE_WIFI_STATE, ACCESS_WIFI_STATE
   }) public static Observable<List<ScanResult>> observeWifiAccessPoints(final Context context) {
-    @SuppressLint("WifiManagerPotentialLeak") final WifiManager wifiManager =
-        (WifiManager) context.getSystemService(Context.WIFI_SERVICE);
+    return observeWifiScanResults(context).map(
+        new Function<WifiScanResults, List<ScanResult>>() {
+          @Override public List<ScanResult> apply(WifiScanResults wifiScanResults)
+              throws Exception {
+            return wifiScanResults.scanResults;
+          }
+        });
+  }
 
-    if (wifiManager != null) {
-      wifiManager.startScan(); // without starting scan, we may never receive any scan results
-    } else {
-      Log.w(LOG_TAG, "WifiManager was null, so WiFi scan was not started");
+  /**
+   * Observes changes of WiFi Access Points.
+   * Returns Access Points added, removed and changed since the previous scan
+   * whenever WiFi scan results change. Access Points are matched by their BSSID.
+   * The first emitted diff contains all Access Points as added ones.
+   *
+   * @param context Context of the activity or an application
+   * @return RxJava Observable with diffs of WiFi scan results
+   */
+  @SuppressLint("MissingPermission") @RequiresPermission(allOf = {
+      ACCESS_COARSE_LOCATION, ACCESS_FINE_LOCATION, CHANGE_WIFI_STATE, ACCESS_WIFI_STATE
+  }) public static Observable<WifiAccessPointsDiff> observeWifiAccessPointDiffs(
+      final Context context) {
+    return Observable.defer(new Callable<ObservableSource<WifiAccessPointsDiff>>() {
+      @Override public ObservableSource<WifiAccessPointsDiff> call() throws Exception {
+        return observeWifiAccessPoints(context).map(new AccessPointsDiffer())
+            .filter(new Predicate<WifiAccessPointsDiff>() {
+              @Override public boolean test(WifiAccessPointsDiff diff) throws Exception {
+                return !diff.isEmpty();
+              }
+            });
+      }
+    });
+  }
+
+  /**
+   * Observes WiFi Access Points as indexed views of each scan.
+   * Returns WifiScanIndex with Access Points indexed by BSSID, SSID, band and channel
+   * and topK strongest Access Points whenever new scan results are available.
+   *
+   * @param context Context of the activity or an application
+   * @param topK max number of the strongest Access Points kept in the index
+   * @return RxJava Observable with indexed WiFi scan results
+   */
+  @SuppressLint("MissingPermission") @RequiresPermission(allOf = {
+      ACCESS_COARSE_LOCATION, ACCESS_FINE_LOCATION, CHANGE_WIFI_STATE, ACCESS_WIFI_STATE
+  }) public static Observable<WifiScanIndex> observeWifiScanIndex(final Context context,
+      final int topK) {
+    if (topK <= 0) {
+      throw new IllegalArgumentException("topK has to be greater than zero");
     }
+    return Observable.defer(new Callable<ObservableSource<WifiScanIndex>>() {
+      @Override public ObservableSource<WifiScanIndex> call() throws Exception {
+        return observeWifiScanResults(context).map(new WifiScanIndexer(topK));
+      }
+    });
+  }
 
-    final IntentFilter filter = new IntentFilter();
-    filter.addAction(WifiManager.RSSI_CHANGED_ACTION);
-    filter.addAction(WifiManager.SCAN_RESULTS_AVAILABLE_ACTION);
+  /**
+   * Observes WiFi Access Points as compact snapshots.
+   * Returns WifiScanSnapshot containing BSSID, SSID, RSSI, frequency and timestamp
+   * of each Access Point whenever new scan results are available.
+   *
+   * @param context Context of the activity or an application
+   * @return RxJava Observable with snapshots of WiFi scan results
+   */
+  @SuppressLint("MissingPermission") @RequiresPermission(allOf = {
+      ACCESS_COARSE_LOCATION, ACCESS_FINE_LOCATION, CHANGE_WIFI_STATE, ACCESS_WIFI_STATE
+  }) public static Observable<WifiScanSnapshot> observeWifiScanSnapshots(final Context context) {
+    return Observable.defer(new Callable<ObservableSource<WifiScanSnapshot>>() {
+      @Override public ObservableSource<WifiScanSnapshot> call() throws Exception {
+        return observeWifiScanResults(context).map(new WifiScanSnapshotEncoder());
+      }
+    });
+  }
 
-    return Observable.create(new ObservableOnSubscribe<List<ScanResult>>() {
+  /**
+   * Observes WiFi Access Points as compact snapshots persisted in ScanCache.
+   * Right after subscription, returns the last snapshot from the cache with CACHED status
+   * (if it's available) and then WifiScanSnapshot whenever new scan results are available.
+   * Each new snapshot is written to the cache.
+   * The cache is read on the io() scheduler, so the cached snapshot is emitted on its thread,
+   * and it's dropped, when a new snapshot arrives first. Snapshots are written to the cache
+   * on a single background thread, so neither the subscribing thread nor the thread
+   * delivering broadcasts waits for the file.
+   *
+   * @param context Context of the activity or an application
+   * @param scanCache where snapshots are persisted
+   * @return RxJava Observable with snapshots of WiFi scan results
+   */
+  @SuppressLint("MissingPermission") @RequiresPermission(allOf = {
+      ACCESS_COARSE_LOCATION, ACCESS_FINE_LOCATION, CHANGE_WIFI_STATE, ACCESS_WIFI_STATE
+  }) public static Observable<WifiScanSnapshot> observeWifiScanSnapshots(final Context context,
+      final ScanCache scanCache) {
+    final Observable<WifiScanSnapshot> cachedSnapshot =
+        Maybe.fromCallable(new Callable<WifiScanSnapshot>() {
+          @Override public WifiScanSnapshot call() throws Exception {
+            return scanCache.readLatest();
+          }
+        }).subscribeOn(Schedulers.io()).toObservable();
+
+    return observeWifiScanSnapshots(context)
+        .doOnNext(new Consumer<WifiScanSnapshot>() {
+          @Override public void accept(final WifiScanSnapshot snapshot) throws Exception {
+            ScanCacheSchedulerHolder.SCHEDULER.scheduleDirect(new Runnable() {
+              @Override public void run() {
+                scanCache.write(snapshot);
+              }
+            });
+          }
+        })
+        .publish(new Function<Observable<WifiScanSnapshot>, ObservableSource<WifiScanSnapshot>>() {
+          @Override public ObservableSource<WifiScanSnapshot> apply(
+              final Observable<WifiScanSnapshot> snapshots) throws Exception {
+            // cached snapshot is older than any new one, so it's not emitted after it
+            return Observable.merge(cachedSnapshot.takeUntil(snapshots), snapshots);
+          }
+        });
+  }
 
-      @Override public void subscribe(final ObservableEmitter<List<ScanResult>> emitter)
-          throws Exception {
-        final BroadcastReceiver receiver = createWifiScanResultsReceiver(emitter, wifiManager);
+  /**
+   * Observes WiFi Access Points with backpressure support.
+   * Returns fresh list of Access Points whenever new scan results are available.
+   *
+   * @param context Context of the activity or an application
+   * @param backpressure defining what happens with lists, which can't be consumed on time
+   * @return RxJava Flowable with list of WiFi scan results
+   */
+  @SuppressLint("MissingPermission") @RequiresPermission(allOf = {
+      ACCESS_COARSE_LOCATION, ACCESS_FINE_LOCATION, CHANGE_WIFI_STATE, ACCESS_WIFI_STATE
+  }) public static Flowable<List<ScanResult>> observeWifiAccessPointsFlowable(
+      final Context context, final WifiBackpressure backpressure) {
+    return backpressure.apply(observeWifiAccessPoints(context));
+  }
 
-        if (wifiManager != null) {
-          context.registerReceiver(receiver, filter);
-        } else {
-          emitter.onError(new RuntimeException(
-              "WifiManager was null, so BroadcastReceiver for Wifi scan results "
-                  + "cannot be registered"));
-        }
+  /**
+   * Observes WiFi Access Points as compact snapshots with backpressure support.
+   * Returns WifiScanSnapshot whenever new scan results are available.
+   *
+   * @param context Context of the activity or an application
+   * @param backpressure defining what happens with snapshots, which can't be consumed on time
+   * @return RxJava Flowable with snapshots of WiFi scan results
+   */
+  @SuppressLint("MissingPermission") @RequiresPermission(allOf = {
+      ACCESS_COARSE_LOCATION, ACCESS_FINE_LOCATION, CHANGE_WIFI_STATE, ACCESS_WIFI_STATE
+  }) public static Flowable<WifiScanSnapshot> observeWifiScanSnapshotsFlowable(
+      final Context context, final WifiBackpressure backpressure) {
+    return backpressure.apply(observeWifiScanSnapshots(context));
+  }
 
-        Disposable disposable = disposeInUiThread(new Action() {
-          @Override public void run() {
-            tryToUnregisterReceiver(context, receiver);
-          }
-        });
+  /**
+   * Observes WiFi scan results with default ScanScheduler shared by the whole library.
+   * Returns list of Access Points together with information if they're fresh or throttled
+   * whenever new scan results are available.
+   *
+   * @param context Context of the activity or an application
+   * @return RxJava Observable with WiFi scan results and their status
+   */
+  @SuppressLint("MissingPermission") @RequiresPermission(allOf = {
+      ACCESS_COARSE_LOCATION, ACCESS_FINE_LOCATION, CHANGE_WIFI_STATE, ACCESS_WIFI_STATE
+  }) public static Observable<WifiScanResults> observeWifiScanResults(final Context context) {
+    return observeWifiScanResults(context, SCAN_SCHEDULER);
+  }
 
-        emitter.setDisposable(disposable);
+  /**
+   * Observes WiFi scan results.
+   * Returns list of Access Points together with information if they're fresh or throttled
+   * whenever new scan results are available. The same scan results are not emitted twice.
+   * All WiFi scans are started by given ScanScheduler.
+   *
+   * @param context Context of the activity or an application
+   * @param scanScheduler responsible for starting WiFi scans
+   * @return RxJava Observable with WiFi scan results and their status
+   */
+  @SuppressLint("MissingPermission") @RequiresPermission(allOf = {
+      ACCESS_COARSE_LOCATION, ACCESS_FINE_LOCATION, CHANGE_WIFI_STATE, ACCESS_WIFI_STATE
+  }) public static Observable<WifiScanResults> observeWifiScanResults(final Context context,
+      final ScanScheduler scanScheduler) {
+    return Observable.create(new ObservableOnSubscribe<WifiScanResults>() {
+      @Override public void subscribe(final ObservableEmitter<WifiScanResults> emitter)
+          throws Exception {
+        emitter.setDisposable(
+            WifiListeners.listenForWifiScanResults(context, scanScheduler, emitTo(emitter)));
       }
     });
   }
 
   @NonNull protected static BroadcastReceiver createWifiScanResultsReceiver(
-      final ObservableEmitter<List<ScanResult>> emitter, final WifiManager wifiManager) {
-    return new BroadcastReceiver() {
-      @Override public void onReceive(Context context1, Intent intent) {
-        wifiManager.startScan(); // we need to start scan again to get fresh results ASAP
-        emitter.onNext(wifiManager.getScanResults());
-      }
-    };
+      final ObservableEmitter<WifiScanResults> emitter, final WifiManager wifiManager,
+      final ScanScheduler scanScheduler) {
+    return new ScanResultsReceiver(emitTo(emitter), wifiManager, scanScheduler,
+        getHub().getHandler());
   }
 
   /**
    * Observes WiFi signal level with predefined max num levels.
    * Returns WiFi signal level as enum with information about current level
+   * whenever the level changes
    *
    * @param context Context of the activity or an application
    * @return WifiSignalLevel as an enum
    */
   @RequiresPermission(ACCESS_WIFI_STATE)
   public static Observable<WifiSignalLevel> observeWifiSignalLevel(final Context context) {
-    return observeWifiSignalLevel(context, WifiSignalLevel.getMaxLevel()).map(
-        new Function<Integer, WifiSignalLevel>() {
-          @Override public WifiSignalLevel apply(Integer level) throws Exception {
-            return WifiSignalLevel.fromLevel(level);
-          }
-        });
+    return observeWifiSignalLevel(context, false);
+  }
+
+  /**
+   * Observes WiFi signal level with predefined max num levels.
+   * Returns WiFi signal level as enum with information about current level
+   * whenever the level changes
+   *
+   * @param context Context of the activity or an application
+   * @param emitCurrentValue true if the current level should be emitted right after subscription
+   * @return WifiSignalLevel as an enum
+   */
+  @RequiresPermission(ACCESS_WIFI_STATE)
+  public static Observable<WifiSignalLevel> observeWifiSignalLevel(final Context context,
+      final boolean emitCurrentValue) {
+    return Observable.create(new ObservableOnSubscribe<WifiSignalLevel>() {
+      @Override public void subscribe(final ObservableEmitter<WifiSignalLevel> emitter)
+          throws Exception {
+        emitter.setDisposable(
+            WifiListeners.listenForWifiSignalLevel(context, emitCurrentValue, emitTo(emitter)));
+      }
+    }).defaultIfEmpty(WifiSignalLevel.NO_SIGNAL);
+  }
+
+  /**
+   * Observes WiFi signal level with predefined max num levels and backpressure support.
+   * Returns WiFi signal level as enum whenever the level changes
+   *
+   * @param context Context of the activity or an application
+   * @param backpressure defining what happens with levels, which can't be consumed on time
+   * @return RxJava Flowable with WifiSignalLevel
+   */
+  @RequiresPermission(ACCESS_WIFI_STATE)
+  public static Flowable<WifiSignalLevel> observeWifiSignalLevelFlowable(final Context context,
+      final WifiBackpressure backpressure) {
+    return backpressure.apply(observeWifiSignalLevel(context));
+  }
+
+  /**
+   * Observes WiFi signal level with backpressure support.
+   * Returns WiFi signal level as an integer whenever the level changes
+   *
+   * @param context Context of the activity or an application
+   * @param numLevels The number of levels to consider in the calculated level as Integer
+   * @param backpressure defining what happens with levels, which can't be consumed on time
+   * @return RxJava Flowable with WiFi signal level
+   */
+  @RequiresPermission(ACCESS_WIFI_STATE)
+  public static Flowable<Integer> observeWifiSignalLevelFlowable(final Context context,
+      final int numLevels, final WifiBackpressure backpressure) {
+    return backpressure.apply(observeWifiSignalLevel(context, numLevels));
+  }
+
+  @NonNull protected static BroadcastReceiver createWifiSignalLevelReceiver(
+      final ObservableEmitter<WifiSignalLevel> emitter, final WifiManager wifiManager) {
+    return WifiListeners.createWifiSignalLevelReceiver(emitTo(emitter), wifiManager);
   }
 
   /**
    * Observes WiFi signal level.
-   * Returns WiFi signal level as an integer
+   * Returns WiFi signal level as an integer whenever the level changes
    *
    * @param context Context of the activity or an application
    * @param numLevels The number of levels to consider in the calculated level as Integer
@@ -142,30 +418,24 @@ public class ReactiveWifi {
    */
   @RequiresPermission(ACCESS_WIFI_STATE) public static Observable<Integer> observeWifiSignalLevel(
       final Context context, final int numLevels) {
-    final WifiManager wifiManager = (WifiManager) context.getSystemService(Context.WIFI_SERVICE);
-    final IntentFilter filter = new IntentFilter();
-    filter.addAction(WifiManager.RSSI_CHANGED_ACTION);
+    return observeWifiSignalLevel(context, numLevels, false);
+  }
 
+  /**
+   * Observes WiFi signal level.
+   * Returns WiFi signal level as an integer whenever the level changes
+   *
+   * @param context Context of the activity or an application
+   * @param numLevels The number of levels to consider in the calculated level as Integer
+   * @param emitCurrentValue true if the current level should be emitted right after subscription
+   * @return RxJava Observable with WiFi signal level
+   */
+  @RequiresPermission(ACCESS_WIFI_STATE) public static Observable<Integer> observeWifiSignalLevel(
+      final Context context, final int numLevels, final boolean emitCurrentValue) {
     return Observable.create(new ObservableOnSubscribe<Integer>() {
       @Override public void subscribe(final ObservableEmitter<Integer> emitter) throws Exception {
-        final BroadcastReceiver receiver =
-            createSignalLevelReceiver(emitter, wifiManager, numLevels);
-
-        if (wifiManager != null) {
-          context.registerReceiver(receiver, filter);
-        } else {
-          emitter.onError(new RuntimeException(
-              "WifiManager is null, so BroadcastReceiver for Wifi signal level "
-                  + "cannot be registered"));
-        }
-
-        Disposable disposable = disposeInUiThread(new Action() {
-          @Override public void run() {
-            tryToUnregisterReceiver(context, receiver);
-          }
-        });
-
-        emitter.setDisposable(disposable);
+        emitter.setDisposable(WifiListeners.listenForWifiSignalLevel(context, numLevels,
+            emitCurrentValue, emitTo(emitter)));
       }
     }).defaultIfEmpty(0);
   }
@@ -173,13 +443,43 @@ public class ReactiveWifi {
   @NonNull protected static BroadcastReceiver createSignalLevelReceiver(
       final ObservableEmitter<Integer> emitter,
       final WifiManager wifiManager, final int numLevels) {
-    return new BroadcastReceiver() {
-      @Override public void onReceive(Context context, Intent intent) {
-        final int rssi = wifiManager.getConnectionInfo().getRssi();
-        final int level = WifiManager.calculateSignalLevel(rssi, numLevels);
-        emitter.onNext(level);
+    return WifiListeners.createSignalLevelReceiver(emitTo(emitter), wifiManager,
+        SignalQuantizer.fromNumLevels(numLevels));
+  }
+
+  /**
+   * Observes WiFi signal level quantized with custom thresholds and hysteresis.
+   * Returns WiFi signal level as an integer only when the level changes
+   *
+   * @param context Context of the activity or an application
+   * @param quantizer converting RSSI into signal level
+   * @return RxJava Observable with WiFi signal level
+   */
+  @RequiresPermission(ACCESS_WIFI_STATE) public static Observable<Integer> observeWifiSignalLevel(
+      final Context context, final SignalQuantizer quantizer) {
+    return observeWifiSignalLevel(context, quantizer, false);
+  }
+
+  /**
+   * Observes WiFi signal level quantized with custom thresholds and hysteresis.
+   * Returns WiFi signal level as an integer only when the level changes, so RSSI
+   * fluctuating around the threshold doesn't emit the same levels back and forth.
+   * It's an alternative to {@link #observeWifiSignalLevel(Context, int, boolean)}
+   * with thresholds spread evenly between -100 and -55 dBm.
+   *
+   * @param context Context of the activity or an application
+   * @param quantizer converting RSSI into signal level
+   * @param emitCurrentValue true if the current level should be emitted right after subscription
+   * @return RxJava Observable with WiFi signal level
+   */
+  @RequiresPermission(ACCESS_WIFI_STATE) public static Observable<Integer> observeWifiSignalLevel(
+      final Context context, final SignalQuantizer quantizer, final boolean emitCurrentValue) {
+    return Observable.create(new ObservableOnSubscribe<Integer>() {
+      @Override public void subscribe(final ObservableEmitter<Integer> emitter) throws Exception {
+        emitter.setDisposable(WifiListeners.listenForWifiSignalLevel(context, quantizer,
+            emitCurrentValue, emitTo(emitter)));
       }
-    };
+    }).defaultIfEmpty(0);
   }
 
   /**
@@ -192,39 +492,18 @@ public class ReactiveWifi {
    */
   @RequiresPermission(ACCESS_WIFI_STATE)
   public static Observable<SupplicantState> observeSupplicantState(final Context context) {
-    final IntentFilter filter = new IntentFilter();
-    filter.addAction(WifiManager.SUPPLICANT_STATE_CHANGED_ACTION);
-
     return Observable.create(new ObservableOnSubscribe<SupplicantState>() {
       @Override public void subscribe(final ObservableEmitter<SupplicantState> emitter)
           throws Exception {
-        final BroadcastReceiver receiver = createSupplicantStateReceiver(emitter);
-
-        context.registerReceiver(receiver, filter);
-
-        Disposable disposable = disposeInUiThread(new Action() {
-          @Override public void run() {
-            tryToUnregisterReceiver(context, receiver);
-          }
-        });
-
-        emitter.setDisposable(disposable);
+        emitter.setDisposable(
+            WifiListeners.listenForSupplicantState(context, emitTo(emitter)));
       }
     }).defaultIfEmpty(SupplicantState.UNINITIALIZED);
   }
 
   @NonNull protected static BroadcastReceiver createSupplicantStateReceiver(
       final ObservableEmitter<SupplicantState> emitter) {
-    return new BroadcastReceiver() {
-      @Override public void onReceive(Context context, Intent intent) {
-        SupplicantState supplicantState =
-            intent.getParcelableExtra(WifiManager.EXTRA_NEW_STATE);
-
-        if ((supplicantState != null) && SupplicantState.isValidState(supplicantState)) {
-          emitter.onNext(supplicantState);
-        }
-      }
-    };
+    return WifiListeners.createSupplicantStateReceiver(emitTo(emitter));
   }
 
   /**
@@ -236,39 +515,32 @@ public class ReactiveWifi {
    */
   @RequiresPermission(ACCESS_WIFI_STATE)
   public static Observable<WifiInfo> observeWifiAccessPointChanges(final Context context) {
-    final WifiManager wifiManager = (WifiManager) context.getSystemService(Context.WIFI_SERVICE);
-    final IntentFilter filter = new IntentFilter();
-    filter.addAction(WifiManager.SUPPLICANT_STATE_CHANGED_ACTION);
+    return observeWifiAccessPointChanges(context, false);
+  }
 
+  /**
+   * Observes the WiFi network the device is connected to.
+   * Returns the current WiFi network information as a {@link WifiInfo} object.
+   *
+   * @param context Context of the activity or an application
+   * @param emitCurrentValue true if information about the network the device is currently
+   * connected to should be emitted right after subscription
+   * @return RxJava Observable with WifiInfo
+   */
+  @RequiresPermission(ACCESS_WIFI_STATE)
+  public static Observable<WifiInfo> observeWifiAccessPointChanges(final Context context,
+      final boolean emitCurrentValue) {
     return Observable.create(new ObservableOnSubscribe<WifiInfo>() {
       @Override public void subscribe(final ObservableEmitter<WifiInfo> emitter) throws Exception {
-        final BroadcastReceiver receiver =
-            createAccessPointChangesReceiver(emitter, wifiManager);
-
-        context.registerReceiver(receiver, filter);
-
-        Disposable disposable = disposeInUiThread(new Action() {
-          @Override public void run() {
-            tryToUnregisterReceiver(context, receiver);
-          }
-        });
-
-        emitter.setDisposable(disposable);
+        emitter.setDisposable(WifiListeners.listenForWifiAccessPointChanges(context,
+            emitCurrentValue, emitTo(emitter)));
       }
     });
   }
 
   @NonNull protected static BroadcastReceiver createAccessPointChangesReceiver(
       final ObservableEmitter<WifiInfo> emitter, final WifiManager wifiManager) {
-    return new BroadcastReceiver() {
-      @Override public void onReceive(Context context, Intent intent) {
-        SupplicantState supplicantState =
-            intent.getParcelableExtra(WifiManager.EXTRA_NEW_STATE);
-        if (supplicantState == SupplicantState.COMPLETED) {
-          emitter.onNext(wifiManager.getConnectionInfo());
-        }
-      }
-    };
+    return WifiListeners.createAccessPointChangesReceiver(emitTo(emitter), wifiManager);
   }
 
   /**
@@ -281,36 +553,279 @@ public class ReactiveWifi {
    */
   @RequiresPermission(ACCESS_WIFI_STATE) public static Observable<WifiState> observeWifiStateChange(
       final Context context) {
-    final IntentFilter filter = new IntentFilter();
-    filter.addAction(WifiManager.WIFI_STATE_CHANGED_ACTION);
+    return observeWifiStateChange(context, false);
+  }
 
+  /**
+   * Observes WiFi State Change Action
+   * Returns wifi state
+   * whenever WiFi state changes such like enable,disable,enabling,disabling or Unknown
+   *
+   * @param context Context of the activity or an application
+   * @param emitCurrentValue true if the current state should be emitted right after subscription
+   * @return RxJava Observable with different state change
+   */
+  @RequiresPermission(ACCESS_WIFI_STATE) public static Observable<WifiState> observeWifiStateChange(
+      final Context context, final boolean emitCurrentValue) {
     return Observable.create(new ObservableOnSubscribe<WifiState>() {
       @Override public void subscribe(final ObservableEmitter<WifiState> emitter) throws Exception {
-        final BroadcastReceiver receiver = createWifiStateChangeReceiver(emitter);
-        context.registerReceiver(receiver, filter);
-        Disposable disposable = disposeInUiThread(new Action() {
-          @Override public void run() {
-            tryToUnregisterReceiver(context, receiver);
-          }
-        });
-
-        emitter.setDisposable(disposable);
+        emitter.setDisposable(
+            WifiListeners.listenForWifiStateChange(context, emitCurrentValue, emitTo(emitter)));
       }
     });
   }
 
   @NonNull protected static BroadcastReceiver createWifiStateChangeReceiver(
       final ObservableEmitter<WifiState> emitter) {
+    return WifiListeners.createWifiStateChangeReceiver(emitTo(emitter));
+  }
+
+  /**
+   * Observes WiFi with default ScanScheduler shared by the whole library.
+   *
+   * @param context Context of the activity or an application
+   * @return RxJava Observable with WifiSnapshot
+   */
+  @SuppressLint("MissingPermission") @RequiresPermission(allOf = {
+      ACCESS_COARSE_LOCATION, ACCESS_FINE_LOCATION, CHANGE_WIFI_STATE, ACCESS_WIFI_STATE
+  }) public static Observable<WifiSnapshot> observeWifi(final Context context) {
+    return observeWifi(context, SCAN_SCHEDULER);
+  }
+
+  /**
+   * Observes WiFi state, WPA supplicant state, signal, connected Access Point and scan results
+   * with a single BroadcastReceiver. Returns WifiSnapshot with bitmask of changed parts
+   * whenever any of them changes, so it can replace separate streams combined together.
+   * The first snapshot is emitted right after subscription and has all parts marked as changed.
+   *
+   * @param context Context of the activity or an application
+   * @param scanScheduler responsible for starting WiFi scans
+   * @return RxJava Observable with WifiSnapshot
+   */
+  @SuppressLint("MissingPermission") @RequiresPermission(allOf = {
+      ACCESS_COARSE_LOCATION, ACCESS_FINE_LOCATION, CHANGE_WIFI_STATE, ACCESS_WIFI_STATE
+  }) public static Observable<WifiSnapshot> observeWifi(final Context context,
+      final ScanScheduler scanScheduler) {
+    return Observable.create(new ObservableOnSubscribe<WifiSnapshot>() {
+      @Override public void subscribe(final ObservableEmitter<WifiSnapshot> emitter)
+          throws Exception {
+        emitter.setDisposable(WifiListeners.listenForWifi(context, scanScheduler, emitTo(emitter)));
+      }
+    });
+  }
+
+  /**
+   * Observes connection attempts measured from WPA supplicant state transitions.
+   *
+   * @param context Context of the activity or an application
+   * @return RxJava Observable with ConnectionAttempt
+   */
+  @RequiresPermission(ACCESS_WIFI_STATE)
+  public static Observable<ConnectionAttempt> observeConnectionAttempts(final Context context) {
+    return observeConnectionAttempts(context, null);
+  }
+
+  /**
+   * Observes connection attempts measured from WPA supplicant state transitions.
+   * Returns ConnectionAttempt with time spent in scanning, authenticating, associating,
+   * 4-way handshake and group handshake phases whenever the attempt is completed, failed
+   * or given up after looping through the same phases. Durations of completed attempts
+   * are recorded in ConnectionLatencies, so Access Points slow to connect can be found.
+   *
+   * @param context Context of the activity or an application
+   * @param latencies recording durations of completed attempts per Access Point or null
+   * @return RxJava Observable with ConnectionAttempt
+   */
+  @RequiresPermission(ACCESS_WIFI_STATE)
+  public static Observable<ConnectionAttempt> observeConnectionAttempts(final Context context,
+      final ConnectionLatencies latencies) {
+    return Observable.create(new ObservableOnSubscribe<ConnectionAttempt>() {
+      @Override public void subscribe(final ObservableEmitter<ConnectionAttempt> emitter)
+          throws Exception {
+        emitter.setDisposable(
+            WifiListeners.listenForConnectionAttempts(context, latencies, emitTo(emitter)));
+      }
+    });
+  }
+
+  /**
+   * Observes the risk of roaming or disconnection from the connected Access Point
+   * with default thresholds: roaming is likely below -70 dBm and disconnection below -85 dBm.
+   *
+   * @param context Context of the activity or an application
+   * @return RxJava Observable with RoamingRisk
+   */
+  @SuppressLint("MissingPermission") @RequiresPermission(allOf = {
+      ACCESS_COARSE_LOCATION, ACCESS_FINE_LOCATION, CHANGE_WIFI_STATE, ACCESS_WIFI_STATE
+  }) public static Observable<RoamingRisk> observeRoamingRisk(final Context context) {
+    return observeRoamingRisk(context, RoamingRiskPredictor.DEFAULT_ROAM_THRESHOLD,
+        RoamingRiskPredictor.DEFAULT_DISCONNECT_THRESHOLD);
+  }
+
+  /**
+   * Observes the risk of roaming or disconnection from the connected Access Point.
+   * RSSI trend of the connected Access Point is extrapolated a few seconds ahead and compared
+   * with thresholds and with the strongest other Access Point of the same network seen
+   * in recent scans. Returns RoamingRisk whenever the level, connected Access Point
+   * or roaming candidate changes, so apps can prepare before the connection degrades.
+   *
+   * @param context Context of the activity or an application
+   * @param roamThreshold predicted RSSI in dBm below which roaming to a stronger Access Point
+   * is likely
+   * @param disconnectThreshold predicted RSSI in dBm below which disconnection is likely
+   * when there's no stronger Access Point
+   * @return RxJava Observable with RoamingRisk
+   */
+  @SuppressLint("MissingPermission") @RequiresPermission(allOf = {
+      ACCESS_COARSE_LOCATION, ACCESS_FINE_LOCATION, CHANGE_WIFI_STATE, ACCESS_WIFI_STATE
+  }) public static Observable<RoamingRisk> observeRoamingRisk(final Context context,
+      final int roamThreshold, final int disconnectThreshold) {
+    if (disconnectThreshold > roamThreshold) {
+      throw new IllegalArgumentException(
+          "disconnectThreshold cannot be greater than roamThreshold");
+    }
+    return Observable.create(new ObservableOnSubscribe<RoamingRisk>() {
+      @Override public void subscribe(final ObservableEmitter<RoamingRisk> emitter)
+          throws Exception {
+        emitter.setDisposable(WifiListeners.listenForRoamingRisk(context, roamThreshold,
+            disconnectThreshold, emitTo(emitter)));
+      }
+    });
+  }
+
+  /**
+   * Observes WiFi broadcasts for recording traces.
+   * Returns WifiTraceEvent whenever RSSI, scan results, supplicant state or WiFi state
+   * broadcast arrives. Scan results are read right after their broadcast. Scans are not
+   * requested, so the trace contains scans started by the system or other observers.
+   * Events can be written with WifiTraceWriter and replayed with WifiTraceReplayer.
+   *
+   * @param context Context of the activity or an application
+   * @return RxJava Observable with WiFi trace events
+   */
+  @SuppressLint("MissingPermission") @RequiresPermission(allOf = {
+      ACCESS_COARSE_LOCATION, ACCESS_FINE_LOCATION, ACCESS_WIFI_STATE
+  }) public static Observable<WifiTraceEvent> observeWifiTraceEvents(final Context context) {
+    final WifiManager wifiManager = (WifiManager) context.getSystemService(Context.WIFI_SERVICE);
+    final String[] actions = {
+        WifiManager.RSSI_CHANGED_ACTION, WifiManager.SCAN_RESULTS_AVAILABLE_ACTION,
+        WifiManager.SUPPLICANT_STATE_CHANGED_ACTION, WifiManager.WIFI_STATE_CHANGED_ACTION
+    };
+
+    return Observable.create(new ObservableOnSubscribe<WifiTraceEvent>() {
+      @Override public void subscribe(final ObservableEmitter<WifiTraceEvent> emitter)
+          throws Exception {
+        if (wifiManager == null) {
+          emitter.onError(new RuntimeException(
+              "WifiManager is null, so BroadcastReceiver for WiFi trace cannot be registered"));
+          return;
+        }
+
+        final BroadcastReceiverHub hub = getHub();
+        final BroadcastReceiver receiver = createTraceEventsReceiver(emitter, wifiManager);
+        hub.register(context, receiver, actions);
+        emitter.setDisposable(unregisterOnDispose(hub, receiver, actions));
+      }
+    });
+  }
+
+  @NonNull protected static BroadcastReceiver createTraceEventsReceiver(
+      final ObservableEmitter<WifiTraceEvent> emitter, final WifiManager wifiManager) {
     return new BroadcastReceiver() {
-      @Override public void onReceive(Context context, Intent intent) {
-        //we receive whenever the wifi state is change
-        int wifiState =
-            intent.getIntExtra(WifiManager.EXTRA_WIFI_STATE, WifiManager.WIFI_STATE_UNKNOWN);
-        emitter.onNext(WifiState.fromState(wifiState));
+      private final WifiScanSnapshotEncoder encoder = new WifiScanSnapshotEncoder();
+
+      @SuppressLint("MissingPermission") @Override
+      public void onReceive(Context context, Intent intent) {
+        final long timestamp = SystemClock.elapsedRealtimeNanos();
+        final String action = intent.getAction();
+        WifiTraceEvent event = null;
+        if (WifiManager.RSSI_CHANGED_ACTION.equals(action)) {
+          event = WifiTraceEvent.rssiChanged(timestamp,
+              intent.getIntExtra(WifiManager.EXTRA_NEW_RSSI, SignalLevelReceiver.UNKNOWN));
+        } else if (WifiManager.SCAN_RESULTS_AVAILABLE_ACTION.equals(action)) {
+          final boolean updated = intent.getBooleanExtra(WifiManager.EXTRA_RESULTS_UPDATED, true);
+          final WifiScanSnapshot scan = encoder.encode(readScanResults(wifiManager),
+              updated ? ScanStatus.FRESH : ScanStatus.THROTTLED);
+          event = WifiTraceEvent.scanResultsAvailable(timestamp, updated, scan);
+        } else if (WifiManager.SUPPLICANT_STATE_CHANGED_ACTION.equals(action)) {
+          final SupplicantState supplicantState =
+              intent.getParcelableExtra(WifiManager.EXTRA_NEW_STATE);
+          if (supplicantState != null) {
+            event = WifiTraceEvent.supplicantStateChanged(timestamp, supplicantState);
+          }
+        } else if (WifiManager.WIFI_STATE_CHANGED_ACTION.equals(action)) {
+          event = WifiTraceEvent.wifiStateChanged(timestamp,
+              intent.getIntExtra(WifiManager.EXTRA_WIFI_STATE, WifiManager.WIFI_STATE_UNKNOWN));
+        }
+
+        if (event != null) {
+          metrics.onEmission(action);
+          emitter.onNext(event);
+        }
       }
     };
   }
 
+  static Intent createCurrentRssiIntent(final WifiManager wifiManager) {
+    return new Intent(WifiManager.RSSI_CHANGED_ACTION)
+        .putExtra(WifiManager.EXTRA_NEW_RSSI, getConnectionInfo(wifiManager).getRssi());
+  }
+
+  static Intent createCurrentSupplicantStateIntent(final WifiManager wifiManager) {
+    final Intent intent = new Intent(WifiManager.SUPPLICANT_STATE_CHANGED_ACTION);
+    final WifiInfo wifiInfo = getConnectionInfo(wifiManager);
+    intent.putExtra(WifiManager.EXTRA_NEW_STATE, (Parcelable) wifiInfo.getSupplicantState());
+    return intent;
+  }
+
+  static Intent createCurrentWifiStateIntent(final WifiManager wifiManager) {
+    return new Intent(WifiManager.WIFI_STATE_CHANGED_ACTION)
+        .putExtra(WifiManager.EXTRA_WIFI_STATE, wifiManager.getWifiState());
+  }
+
+  /**
+   * Gets connection info from the cache shared by all receivers and external readers
+   */
+  static WifiInfo getConnectionInfo(final WifiManager wifiManager) {
+    return CONNECTION_INFO_CACHE.get(wifiManager);
+  }
+
+  static ConnectionInfoCache getConnectionInfoCache() {
+    return CONNECTION_INFO_CACHE;
+  }
+
+  /**
+   * Reads scan results and reports duration of the call to metrics
+   */
+  @SuppressLint("MissingPermission")
+  static List<ScanResult> readScanResults(final WifiManager wifiManager) {
+    final ReactiveWifiMetrics currentMetrics = metrics;
+    if (currentMetrics == ReactiveWifiMetrics.NO_OP) {
+      return wifiManager.getScanResults();
+    }
+    final long start = System.nanoTime();
+    final List<ScanResult> scanResults = wifiManager.getScanResults();
+    currentMetrics.onWifiManagerCall(ReactiveWifiMetrics.GET_SCAN_RESULTS,
+        System.nanoTime() - start);
+    return scanResults;
+  }
+
+  /**
+   * Reads connection info and reports duration of the call to metrics.
+   * Connection info should be read with getConnectionInfo(WifiManager), which uses the cache.
+   */
+  static WifiInfo readConnectionInfo(final WifiManager wifiManager) {
+    final ReactiveWifiMetrics currentMetrics = metrics;
+    if (currentMetrics == ReactiveWifiMetrics.NO_OP) {
+      return wifiManager.getConnectionInfo();
+    }
+    final long start = System.nanoTime();
+    final WifiInfo wifiInfo = wifiManager.getConnectionInfo();
+    currentMetrics.onWifiManagerCall(ReactiveWifiMetrics.GET_CONNECTION_INFO,
+        System.nanoTime() - start);
+    return wifiInfo;
+  }
+
   protected static void tryToUnregisterReceiver(final Context context,
       final BroadcastReceiver receiver) {
     try {
@@ -324,25 +839,44 @@ public class ReactiveWifi {
     Log.e(LOG_TAG, message, exception);
   }
 
-  private static Disposable disposeInUiThread(final Action action) {
-    return Disposables.fromAction(new Action() {
-      @Override public void run() throws Exception {
-        if (Looper.getMainLooper() == Looper.myLooper()) {
-          action.run();
-        } else {
-          final Scheduler.Worker inner = AndroidSchedulers.mainThread().createWorker();
-          inner.schedule(new Runnable() {
-            @Override public void run() {
-              try {
-                action.run();
-              } catch (Exception e) {
-                onError("Could not unregister receiver in UI Thread", e);
-              }
-              inner.dispose();
-            }
-          });
-        }
+  static BroadcastReceiverHub getHub() {
+    return backgroundDeliveryEnabled ? BackgroundHubHolder.HUB : MAIN_THREAD_HUB;
+  }
+
+  private static <T> WifiListener<T> emitTo(final ObservableEmitter<T> emitter) {
+    return new WifiListener<T>() {
+      @Override public void onNext(final T value) {
+        emitter.onNext(value);
+      }
+
+      @Override public void onError(final Throwable error) {
+        emitter.onError(error);
+      }
+    };
+  }
+
+  private static Disposable unregisterOnDispose(final BroadcastReceiverHub hub,
+      final BroadcastReceiver receiver, final String... actions) {
+    return Disposables.fromRunnable(new Runnable() {
+      @Override public void run() {
+        hub.unregister(receiver, actions);
       }
     });
   }
+
+  private static class BackgroundHubHolder {
+    private final static BroadcastReceiverHub HUB =
+        BroadcastReceiverHub.createForBackgroundThread();
+  }
+
+  private static class ScanCacheSchedulerHolder {
+    private final static Scheduler SCHEDULER =
+        Schedulers.from(Executors.newSingleThreadExecutor(new ThreadFactory() {
+          @Override public Thread newThread(final Runnable runnable) {
+            final Thread thread = new Thread(runnable, SCAN_CACHE_THREAD_NAME);
+            thread.setDaemon(true);
+            return thread;
+          }
+        }));
+  }
 }
@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivewifi;
+
+/**
+ * ReactiveWifiMetrics is notified about work done by the library: received broadcasts,
+ * emissions, scan requests and durations of blocking calls. Methods are called on the threads
+ * doing the work, so implementations have to be thread-safe and fast. All methods do nothing
+ * by default, so implementations can override only the ones they need.
+ * It can be set with ReactiveWifi.setMetrics(metrics).
+ */
+public abstract class ReactiveWifiMetrics {
+  public static final String GET_SCAN_RESULTS = "getScanResults";
+  public static final String GET_CONNECTION_INFO = "getConnectionInfo";
+
+  /**
+   * Default metrics, which ignore all notifications. When they're set,
+   * durations of calls are not measured at all.
+   */
+  public static final ReactiveWifiMetrics NO_OP = new ReactiveWifiMetrics() {
+  };
+
+  /**
+   * Called when system broadcast arrives. Broadcast observed by many subscribers
+   * is counted once.
+   *
+   * @param action of the broadcast
+   */
+  public void onBroadcastReceived(final String action) {
+  }
+
+  /**
+   * Called when a value is emitted to a subscriber
+   *
+   * @param action of the broadcast, which caused the emission
+   */
+  public void onEmission(final String action) {
+  }
+
+  /**
+   * Called when a broadcast doesn't cause emission, because it carries the same value
+   * as the previously emitted one
+   *
+   * @param action of the broadcast
+   */
+  public void onDuplicateSkipped(final String action) {
+  }
+
+  /**
+   * Called when the library requests WiFi scan
+   *
+   * @param accepted true if scan was started, false if it was refused by ScanScheduler
+   * or the system
+   */
+  public void onScanRequested(final boolean accepted) {
+  }
+
+  /**
+   * Called after blocking WifiManager call
+   *
+   * @param method GET_SCAN_RESULTS or GET_CONNECTION_INFO
+   * @param durationNanos duration of the call in nanoseconds
+   */
+  public void onWifiManagerCall(final String method, final long durationNanos) {
+  }
+
+  /**
+   * Called when receiver is unregistered after disposal of the subscription
+   *
+   * @param durationNanos time from disposal to unregistration in nanoseconds,
+   * including the hop to the thread delivering broadcasts
+   */
+  public void onUnregistered(final long durationNanos) {
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivewifi;
+
+/**
+ * RoamingRisk is a prediction of roaming or disconnection made from RSSI trend
+ * of the connected Access Point and Access Points of the same network seen in recent scans
+ */
+public final class RoamingRisk {
+  public final RoamingRiskLevel level;
+  public final String bssid;
+  public final int rssi;
+  public final double rssiTrend;
+  public final int predictedRssi;
+  public final String candidateBssid;
+  public final int candidateRssi;
+  public final long timestamp;
+
+  /**
+   * Creates roaming risk
+   *
+   * @param level of the risk
+   * @param bssid of the connected Access Point or null if the device is not connected
+   * @param rssi the latest RSSI of the connected Access Point in dBm
+   * @param rssiTrend change of RSSI of the connected Access Point in dB per second
+   * @param predictedRssi RSSI of the connected Access Point predicted from the trend in dBm
+   * @param candidateBssid of the strongest other Access Point of the same network
+   * or null if there's no such Access Point in recent scans
+   * @param candidateRssi of the candidate Access Point in dBm
+   * @param timestamp of the prediction in milliseconds since boot
+   */
+  public RoamingRisk(final RoamingRiskLevel level, final String bssid, final int rssi,
+      final double rssiTrend, final int predictedRssi, final String candidateBssid,
+      final int candidateRssi, final long timestamp) {
+    this.level = level;
+    this.bssid = bssid;
+    this.rssi = rssi;
+    this.rssiTrend = rssiTrend;
+    this.predictedRssi = predictedRssi;
+    this.candidateBssid = candidateBssid;
+    this.candidateRssi = candidateRssi;
+    this.timestamp = timestamp;
+  }
+
+  @Override public String toString() {
+    return "RoamingRisk{" + "level=" + level + ", bssid='" + bssid + '\'' + ", rssi=" + rssi
+        + ", rssiTrend=" + rssiTrend + ", predictedRssi=" + predictedRssi + ", candidateBssid='"
+        + candidateBssid + '\'' + ", candidateRssi=" + candidateRssi + ", timestamp="
+        + timestamp + '}';
+  }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivewifi;
+
+/**
+ * Level of the risk that the device is going to leave the Access Point it's connected to.
+ * NONE means that signal of the current Access Point is good enough or improving.
+ * ROAM_LIKELY means that signal is predicted to become weak and there's a stronger
+ * Access Point of the same network, so the device is likely to roam to it.
+ * DISCONNECT_LIKELY means that signal is predicted to become very weak and there's
+ * no better Access Point of the same network, so the connection is likely to be lost.
+ */
+public enum RoamingRiskLevel {
+  NONE("none"),
+  ROAM_LIKELY("roam likely"),
+  DISCONNECT_LIKELY("disconnect likely");
+
+  public final String description;
+
+  RoamingRiskLevel(final String description) {
+    this.description = description;
+  }
+
+  @Override public String toString() {
+    return "RoamingRiskLevel{" + "description='" + description + '\'' + '}';
+  }
+}
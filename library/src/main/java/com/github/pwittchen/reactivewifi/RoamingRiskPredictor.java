@@ -0,0 +1,254 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivewifi;
+
+import android.net.wifi.ScanResult;
+import java.util.List;
+
+/**
+ * RoamingRiskPredictor predicts roaming or disconnection from the connected Access Point.
+ * RSSI trend is a least-squares slope of RSSI samples from the last TREND_WINDOW_MS,
+ * which is extrapolated by HORIZON_MS. Candidate is the strongest other Access Point
+ * of the same network from the latest scan results, which was seen by a scan not older
+ * than MAX_CANDIDATE_AGE_MS.
+ * Once the risk is raised, predicted RSSI has to rise HYSTERESIS_DB above the threshold
+ * to clear it, so the level doesn't flap when RSSI oscillates around the threshold.
+ * This class is not thread-safe.
+ */
+final class RoamingRiskPredictor {
+  static final int DEFAULT_ROAM_THRESHOLD = -70;
+  static final int DEFAULT_DISCONNECT_THRESHOLD = -85;
+  static final int ROAM_MARGIN_DB = 5;
+  static final int HYSTERESIS_DB = 3;
+  static final long HORIZON_MS = 5000;
+  static final long TREND_WINDOW_MS = 10000;
+  static final long MAX_CANDIDATE_AGE_MS = 30000;
+  static final int UNKNOWN_RSSI = Integer.MIN_VALUE;
+  private static final int MAX_SAMPLES = 16;
+  private static final String UNKNOWN_SSID = "<unknown ssid>";
+
+  private final int roamThreshold;
+  private final int disconnectThreshold;
+  private final long[] timestamps = new long[MAX_SAMPLES];
+  private final int[] rssis = new int[MAX_SAMPLES];
+  private int head;
+  private int size;
+  private String bssid;
+  private String ssid;
+  private String candidateBssid;
+  private int candidateRssi = UNKNOWN_RSSI;
+  private long candidateTimestamp;
+  private double trend;
+  private boolean emitted;
+  private RoamingRiskLevel emittedLevel = RoamingRiskLevel.NONE;
+  private String emittedBssid;
+  private String emittedCandidateBssid;
+
+  /**
+   * Creates RoamingRiskPredictor
+   *
+   * @param roamThreshold predicted RSSI in dBm below which roaming to a stronger Access Point
+   * is likely
+   * @param disconnectThreshold predicted RSSI in dBm below which disconnection is likely
+   * when there's no stronger Access Point
+   */
+  RoamingRiskPredictor(final int roamThreshold, final int disconnectThreshold) {
+    if (disconnectThreshold > roamThreshold) {
+      throw new IllegalArgumentException(
+          "disconnectThreshold cannot be greater than roamThreshold");
+    }
+    this.roamThreshold = roamThreshold;
+    this.disconnectThreshold = disconnectThreshold;
+  }
+
+  /**
+   * Sets the Access Point the device is connected to. RSSI history and candidate
+   * are cleared when the device has connected to a different Access Point.
+   *
+   * @param bssid of the connected Access Point
+   * @param ssid of the connected network as returned by WifiInfo
+   */
+  void onConnected(final String bssid, final String ssid) {
+    if (bssid == null) {
+      onDisconnected();
+      return;
+    }
+    if (!bssid.equalsIgnoreCase(this.bssid)) {
+      clear();
+    }
+    this.bssid = bssid;
+    this.ssid = unquote(ssid);
+  }
+
+  void onDisconnected() {
+    clear();
+    bssid = null;
+    ssid = null;
+  }
+
+  /**
+   * Adds RSSI sample of the connected Access Point. When the buffer is full,
+   * the oldest sample is dropped.
+   *
+   * @param timestamp of the sample in milliseconds
+   * @param rssi in dBm
+   */
+  void onRssi(final long timestamp, final int rssi) {
+    if (bssid == null || rssi == UNKNOWN_RSSI || rssi < RssiHistory.MIN_RSSI
+        || rssi > RssiHistory.MAX_RSSI) {
+      return;
+    }
+    if (size == MAX_SAMPLES) {
+      head = (head + 1) % MAX_SAMPLES;
+      size--;
+    }
+    final int index = (head + size) % MAX_SAMPLES;
+    timestamps[index] = timestamp;
+    rssis[index] = rssi;
+    size++;
+  }
+
+  /**
+   * Finds the strongest Access Point of the connected network other than the connected one.
+   * Age of the candidate is counted from the scan, which has seen it for the last time.
+   *
+   * @param scanResults of the latest scan
+   */
+  void onScanResults(final List<ScanResult> scanResults) {
+    if (ssid == null) {
+      return;
+    }
+    candidateBssid = null;
+    candidateRssi = UNKNOWN_RSSI;
+    for (ScanResult scanResult : scanResults) {
+      if (ssid.equals(scanResult.SSID)
+          && scanResult.BSSID != null
+          && !scanResult.BSSID.equalsIgnoreCase(bssid)
+          && scanResult.level > candidateRssi) {
+        candidateBssid = scanResult.BSSID;
+        candidateRssi = scanResult.level;
+        // timestamp of the scan result is given in microseconds since boot
+        candidateTimestamp = scanResult.timestamp / 1000;
+      }
+    }
+  }
+
+  /**
+   * Predicts the risk at the given time
+   *
+   * @param now current time in milliseconds
+   * @return RoamingRisk or null if the level, connected Access Point and candidate
+   * haven't changed since the previously returned prediction
+   */
+  RoamingRisk predict(final long now) {
+    // the latest sample is kept even if it's old, because RSSI of idle connection may not change
+    while (size > 1 && timestamps[head] < now - TREND_WINDOW_MS) {
+      head = (head + 1) % MAX_SAMPLES;
+      size--;
+    }
+
+    final boolean candidateValid =
+        candidateBssid != null && now - candidateTimestamp <= MAX_CANDIDATE_AGE_MS;
+    final String candidate = candidateValid ? candidateBssid : null;
+    final int candidateLevel = candidateValid ? candidateRssi : UNKNOWN_RSSI;
+
+    RoamingRiskLevel level = RoamingRiskLevel.NONE;
+    int rssi = UNKNOWN_RSSI;
+    int predictedRssi = UNKNOWN_RSSI;
+    trend = 0;
+
+    if (bssid != null && size > 0) {
+      rssi = rssis[(head + size - 1) % MAX_SAMPLES];
+      predictedRssi = fit(now + HORIZON_MS);
+      final int hysteresis = emittedLevel != RoamingRiskLevel.NONE ? HYSTERESIS_DB : 0;
+      if (candidateValid && candidateLevel >= predictedRssi + ROAM_MARGIN_DB
+          && predictedRssi < roamThreshold + hysteresis) {
+        level = RoamingRiskLevel.ROAM_LIKELY;
+      } else if (predictedRssi < disconnectThreshold + hysteresis) {
+        level = RoamingRiskLevel.DISCONNECT_LIKELY;
+      }
+    }
+
+    final boolean changed = !emitted
+        || level != emittedLevel
+        || !equal(bssid, emittedBssid)
+        || (level != RoamingRiskLevel.NONE && !equal(candidate, emittedCandidateBssid));
+
+    if (!changed) {
+      return null;
+    }
+
+    emitted = true;
+    emittedLevel = level;
+    emittedBssid = bssid;
+    emittedCandidateBssid = candidate;
+    return new RoamingRisk(level, bssid, rssi, trend * 1000, predictedRssi, candidate,
+        candidateLevel, now);
+  }
+
+  /**
+   * Fits a line to RSSI samples with least squares and stores its slope in trend
+   *
+   * @param time in milliseconds, for which RSSI is predicted
+   * @return RSSI predicted from the line in dBm
+   */
+  private int fit(final long time) {
+    final long origin = timestamps[head];
+    double meanTime = 0;
+    double meanRssi = 0;
+    for (int i = 0; i < size; i++) {
+      final int index = (head + i) % MAX_SAMPLES;
+      meanTime += timestamps[index] - origin;
+      meanRssi += rssis[index];
+    }
+    meanTime /= size;
+    meanRssi /= size;
+
+    double covariance = 0;
+    double variance = 0;
+    for (int i = 0; i < size; i++) {
+      final int index = (head + i) % MAX_SAMPLES;
+      final double deviation = timestamps[index] - origin - meanTime;
+      covariance += deviation * (rssis[index] - meanRssi);
+      variance += deviation * deviation;
+    }
+    trend = variance == 0 ? 0 : covariance / variance;
+
+    final long predicted = Math.round(meanRssi + trend * (time - origin - meanTime));
+    return (int) Math.max(RssiHistory.MIN_RSSI, Math.min(RssiHistory.MAX_RSSI, predicted));
+  }
+
+  private void clear() {
+    head = 0;
+    size = 0;
+    candidateBssid = null;
+    candidateRssi = UNKNOWN_RSSI;
+  }
+
+  static String unquote(final String ssid) {
+    if (ssid == null || UNKNOWN_SSID.equals(ssid)) {
+      return null;
+    }
+    if (ssid.length() > 1 && ssid.charAt(0) == '"' && ssid.charAt(ssid.length() - 1) == '"') {
+      return ssid.substring(1, ssid.length() - 1);
+    }
+    return ssid;
+  }
+
+  private static boolean equal(final String first, final String second) {
+    return first == null ? second == null : first.equals(second);
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivewifi;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.net.wifi.SupplicantState;
+import android.net.wifi.WifiInfo;
+import android.net.wifi.WifiManager;
+import android.os.SystemClock;
+
+/**
+ * RoamingRiskReceiver feeds RoamingRiskPredictor with RSSI and supplicant state broadcasts
+ * and with scan results, and passes the prediction further whenever the risk changes.
+ * Scan results are delivered by ScanResultsReceiver registered in the same
+ * BroadcastReceiverHub, so all inputs of the predictor are handled on the same thread.
+ */
+final class RoamingRiskReceiver extends BroadcastReceiver
+    implements WifiListener<WifiScanResults> {
+  private final WifiListener<RoamingRisk> listener;
+  private final WifiManager wifiManager;
+  private final RoamingRiskPredictor predictor;
+
+  RoamingRiskReceiver(final WifiListener<RoamingRisk> listener, final WifiManager wifiManager,
+      final RoamingRiskPredictor predictor) {
+    this.listener = listener;
+    this.wifiManager = wifiManager;
+    this.predictor = predictor;
+  }
+
+  @Override public void onReceive(final Context context, final Intent intent) {
+    final long now = SystemClock.elapsedRealtime();
+    final String action = intent.getAction();
+
+    if (WifiManager.RSSI_CHANGED_ACTION.equals(action)) {
+      int rssi = intent.getIntExtra(WifiManager.EXTRA_NEW_RSSI, RoamingRiskPredictor.UNKNOWN_RSSI);
+      if (rssi == RoamingRiskPredictor.UNKNOWN_RSSI) {
+        rssi = ReactiveWifi.getConnectionInfo(wifiManager).getRssi();
+      }
+      predictor.onRssi(now, rssi);
+    } else if (WifiManager.SUPPLICANT_STATE_CHANGED_ACTION.equals(action)) {
+      final SupplicantState supplicantState =
+          intent.getParcelableExtra(WifiManager.EXTRA_NEW_STATE);
+      if (supplicantState == SupplicantState.COMPLETED) {
+        final WifiInfo wifiInfo = ReactiveWifi.getConnectionInfo(wifiManager);
+        predictor.onConnected(wifiInfo.getBSSID(), wifiInfo.getSSID());
+        predictor.onRssi(now, wifiInfo.getRssi());
+      } else if (supplicantState == SupplicantState.DISCONNECTED) {
+        predictor.onDisconnected();
+      }
+    }
+
+    publish(action, now);
+  }
+
+  @Override public void onNext(final WifiScanResults wifiScanResults) {
+    final long now = SystemClock.elapsedRealtime();
+    predictor.onScanResults(wifiScanResults.scanResults);
+    publish(WifiManager.SCAN_RESULTS_AVAILABLE_ACTION, now);
+  }
+
+  @Override public void onError(final Throwable error) {
+    listener.onError(error);
+  }
+
+  private void publish(final String action, final long now) {
+    final RoamingRisk roamingRisk = predictor.predict(now);
+    if (roamingRisk != null) {
+      ReactiveWifi.getMetrics().onEmission(action);
+      listener.onNext(roamingRisk);
+    } else {
+      ReactiveWifi.getMetrics().onDuplicateSkipped(action);
+    }
+  }
+}
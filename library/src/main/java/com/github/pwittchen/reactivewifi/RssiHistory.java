@@ -0,0 +1,224 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivewifi;
+
+/**
+ * RssiHistory keeps the latest RSSI samples with their timestamps for each Access Point
+ * in bounded ring buffers backed by arrays of primitives. Number of tracked Access Points
+ * is bounded too, so memory usage is constant. When the limit is reached,
+ * history of the least recently seen Access Point is dropped.
+ * Percentiles are read from per Access Point histograms updated with each sample.
+ * This class is not thread-safe.
+ */
+public final class RssiHistory {
+  public static final int MIN_RSSI = -127;
+  public static final int MAX_RSSI = 0;
+  public static final int NO_SAMPLES = Integer.MIN_VALUE;
+  private static final int BUCKETS = MAX_RSSI - MIN_RSSI + 1;
+
+  private final int capacity;
+  private final BssidSlots slots;
+  private final long[] timestamps;
+  private final int[] rssis;
+  private final int[] heads;
+  private final int[] sizes;
+  private final int[] histograms;
+
+  /**
+   * Creates RssiHistory
+   *
+   * @param capacity max number of samples kept for a single Access Point
+   * @param maxAccessPoints max number of tracked Access Points
+   */
+  public RssiHistory(final int capacity, final int maxAccessPoints) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity has to be greater than zero");
+    }
+    this.capacity = capacity;
+    this.slots = new BssidSlots(maxAccessPoints);
+    this.timestamps = new long[capacity * maxAccessPoints];
+    this.rssis = new int[capacity * maxAccessPoints];
+    this.heads = new int[maxAccessPoints];
+    this.sizes = new int[maxAccessPoints];
+    this.histograms = new int[BUCKETS * maxAccessPoints];
+  }
+
+  /**
+   * Adds RSSI sample of the Access Point. When ring buffer of the Access Point is full,
+   * the oldest sample is dropped.
+   *
+   * @param bssid of the Access Point packed into long
+   * @param timestamp of the sample
+   * @param rssi in dBm
+   */
+  public void add(final long bssid, final long timestamp, final int rssi) {
+    int slot = slots.find(bssid);
+    if (slot < 0) {
+      slot = slots.insert(bssid);
+      clear(slot);
+    }
+    addToSlot(slot, timestamp, rssi);
+  }
+
+  /**
+   * Adds RSSI sample to the slot assigned by the caller, which keeps its own BssidSlots
+   * and clears the slot, when it's assigned to another Access Point
+   *
+   * @param slot of the Access Point lower than maxAccessPoints
+   * @param timestamp of the sample
+   * @param rssi in dBm
+   */
+  void addToSlot(final int slot, final long timestamp, final int rssi) {
+    final int clampedRssi = Math.max(MIN_RSSI, Math.min(MAX_RSSI, rssi));
+    final int offset = slot * capacity;
+
+    if (sizes[slot] == capacity) {
+      histograms[slot * BUCKETS + rssis[offset + heads[slot]] - MIN_RSSI]--;
+      heads[slot] = (heads[slot] + 1) % capacity;
+      sizes[slot]--;
+    }
+
+    final int index = offset + (heads[slot] + sizes[slot]) % capacity;
+    timestamps[index] = timestamp;
+    rssis[index] = clampedRssi;
+    histograms[slot * BUCKETS + clampedRssi - MIN_RSSI]++;
+    sizes[slot]++;
+  }
+
+  /**
+   * Adds RSSI samples of all Access Points from the snapshot
+   *
+   * @param snapshot of WiFi scan results
+   */
+  public void addAll(final WifiScanSnapshot snapshot) {
+    for (int i = 0; i < snapshot.size(); i++) {
+      final long bssid = snapshot.getBssid(i);
+      if (bssid != WifiScanSnapshot.INVALID_BSSID) {
+        add(bssid, snapshot.getTimestamp(i), snapshot.getRssi(i));
+      }
+    }
+  }
+
+  /**
+   * Returns number of samples kept for the Access Point
+   *
+   * @param bssid of the Access Point packed into long
+   * @return number of samples
+   */
+  public int size(final long bssid) {
+    final int slot = slots.find(bssid);
+    return slot < 0 ? 0 : sizes[slot];
+  }
+
+  /**
+   * Returns RSSI of the sample
+   *
+   * @param bssid of the Access Point packed into long
+   * @param index of the sample, where 0 is the oldest one
+   * @return RSSI in dBm
+   */
+  public int getRssi(final long bssid, final int index) {
+    return rssis[indexOf(bssid, index)];
+  }
+
+  /**
+   * Returns timestamp of the sample
+   *
+   * @param bssid of the Access Point packed into long
+   * @param index of the sample, where 0 is the oldest one
+   * @return timestamp of the sample
+   */
+  public long getTimestamp(final long bssid, final int index) {
+    return timestamps[indexOf(bssid, index)];
+  }
+
+  /**
+   * Returns mean RSSI of the samples kept for the Access Point
+   *
+   * @param bssid of the Access Point packed into long
+   * @return mean RSSI or NaN if there are no samples
+   */
+  public double mean(final long bssid) {
+    final int slot = slots.find(bssid);
+    if (slot < 0 || sizes[slot] == 0) {
+      return Double.NaN;
+    }
+
+    long sum = 0;
+    for (int i = 0; i < sizes[slot]; i++) {
+      sum += rssis[slot * capacity + (heads[slot] + i) % capacity];
+    }
+    return (double) sum / sizes[slot];
+  }
+
+  /**
+   * Returns percentile of RSSI of the samples kept for the Access Point
+   * with the nearest-rank method
+   *
+   * @param bssid of the Access Point packed into long
+   * @param percentile between 0 and 1, e.g. 0.5 for median or 0.9 for p90
+   * @return RSSI percentile in dBm or NO_SAMPLES if there are no samples
+   */
+  public int percentile(final long bssid, final double percentile) {
+    if (percentile < 0 || percentile > 1) {
+      throw new IllegalArgumentException("percentile has to be between 0 and 1");
+    }
+
+    final int slot = slots.find(bssid);
+    return slot < 0 ? NO_SAMPLES : percentileOfSlot(slot, percentile);
+  }
+
+  /**
+   * Returns percentile of RSSI of the samples kept in the slot assigned by the caller
+   *
+   * @param slot of the Access Point lower than maxAccessPoints
+   * @param percentile between 0 and 1
+   * @return RSSI percentile in dBm or NO_SAMPLES if there are no samples
+   */
+  int percentileOfSlot(final int slot, final double percentile) {
+    if (sizes[slot] == 0) {
+      return NO_SAMPLES;
+    }
+
+    final int rank = Math.max(1, (int) Math.ceil(percentile * sizes[slot]));
+    final int offset = slot * BUCKETS;
+    int count = 0;
+    for (int bucket = 0; bucket < BUCKETS; bucket++) {
+      count += histograms[offset + bucket];
+      if (count >= rank) {
+        return bucket + MIN_RSSI;
+      }
+    }
+    return MAX_RSSI;
+  }
+
+  private int indexOf(final long bssid, final int index) {
+    final int slot = slots.find(bssid);
+    if (slot < 0 || index < 0 || index >= sizes[slot]) {
+      throw new IndexOutOfBoundsException("there's no sample with index " + index);
+    }
+    return slot * capacity + (heads[slot] + index) % capacity;
+  }
+
+  void clear(final int slot) {
+    heads[slot] = 0;
+    sizes[slot] = 0;
+    final int offset = slot * BUCKETS;
+    for (int bucket = 0; bucket < BUCKETS; bucket++) {
+      histograms[offset + bucket] = 0;
+    }
+  }
+}
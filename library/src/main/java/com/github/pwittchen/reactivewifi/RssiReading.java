@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivewifi;
+
+/**
+ * RssiReading contains raw RSSI of the Access Point from a single scan
+ * together with the value computed from its history (e.g. smoothed RSSI or RSSI percentile)
+ */
+public class RssiReading {
+  public final long bssid;
+  public final long timestamp;
+  public final int rssi;
+  public final double value;
+
+  public RssiReading(final long bssid, final long timestamp, final int rssi, final double value) {
+    this.bssid = bssid;
+    this.timestamp = timestamp;
+    this.rssi = rssi;
+    this.value = value;
+  }
+
+  @Override public String toString() {
+    return "RssiReading{"
+        + "bssid='" + WifiScanSnapshot.unpackBssid(bssid) + '\''
+        + ", timestamp=" + timestamp
+        + ", rssi=" + rssi
+        + ", value=" + value
+        + '}';
+  }
+}
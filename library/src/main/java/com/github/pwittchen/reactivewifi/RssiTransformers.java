@@ -0,0 +1,245 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivewifi;
+
+import io.reactivex.Observable;
+import io.reactivex.ObservableSource;
+import io.reactivex.ObservableTransformer;
+import io.reactivex.functions.Function;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * RssiTransformers contains RxJava transformers, which turn stream of WiFi scan snapshots
+ * into stream of RssiReadings with RSSI of each Access Point smoothed or aggregated over time.
+ * Entries of the snapshot, which haven't been updated by a scan since the previous snapshot
+ * (their timestamp hasn't changed), are skipped, so the same sample isn't counted twice.
+ * State of each transformer is kept per subscription in arrays of primitives
+ * with bounded number of tracked Access Points, so it uses constant memory.
+ */
+public final class RssiTransformers {
+  public static final int DEFAULT_MAX_ACCESS_POINTS = 256;
+
+  private RssiTransformers() {
+  }
+
+  /**
+   * Smooths RSSI of each Access Point with exponentially weighted moving average
+   *
+   * @param alpha weight of the newest sample between 0 (exclusive) and 1 (inclusive)
+   * @return RxJava transformer emitting RssiReadings with smoothed RSSI as a value
+   */
+  public static ObservableTransformer<WifiScanSnapshot, RssiReading> ewma(final double alpha) {
+    if (alpha <= 0 || alpha > 1) {
+      throw new IllegalArgumentException("alpha has to be greater than 0 and not greater than 1");
+    }
+    return transformer(new Callable<RssiFunction>() {
+      @Override public RssiFunction call() {
+        return new EwmaFunction(alpha, DEFAULT_MAX_ACCESS_POINTS);
+      }
+    });
+  }
+
+  /**
+   * Smooths RSSI of each Access Point with one-dimensional Kalman filter
+   *
+   * @param processNoise variance of the real RSSI changes between two scans
+   * @param measurementNoise variance of the RSSI measurement error
+   * @return RxJava transformer emitting RssiReadings with estimated RSSI as a value
+   */
+  public static ObservableTransformer<WifiScanSnapshot, RssiReading> kalman(
+      final double processNoise, final double measurementNoise) {
+    if (processNoise < 0 || measurementNoise <= 0) {
+      throw new IllegalArgumentException(
+          "processNoise can't be negative and measurementNoise has to be greater than zero");
+    }
+    return transformer(new Callable<RssiFunction>() {
+      @Override public RssiFunction call() {
+        return new KalmanFunction(processNoise, measurementNoise, DEFAULT_MAX_ACCESS_POINTS);
+      }
+    });
+  }
+
+  /**
+   * Computes rolling median (p50) of RSSI of each Access Point
+   *
+   * @param windowSize number of the latest samples of the Access Point taken into account
+   * @return RxJava transformer emitting RssiReadings with RSSI median as a value
+   */
+  public static ObservableTransformer<WifiScanSnapshot, RssiReading> rollingMedian(
+      final int windowSize) {
+    return rollingPercentile(0.5, windowSize);
+  }
+
+  /**
+   * Computes rolling percentile (e.g. p90) of RSSI of each Access Point
+   *
+   * @param percentile between 0 and 1, e.g. 0.9 for p90
+   * @param windowSize number of the latest samples of the Access Point taken into account
+   * @return RxJava transformer emitting RssiReadings with RSSI percentile as a value
+   */
+  public static ObservableTransformer<WifiScanSnapshot, RssiReading> rollingPercentile(
+      final double percentile, final int windowSize) {
+    if (percentile < 0 || percentile > 1) {
+      throw new IllegalArgumentException("percentile has to be between 0 and 1");
+    }
+    return transformer(new Callable<RssiFunction>() {
+      @Override public RssiFunction call() {
+        return new PercentileFunction(percentile, windowSize, DEFAULT_MAX_ACCESS_POINTS);
+      }
+    });
+  }
+
+  private static ObservableTransformer<WifiScanSnapshot, RssiReading> transformer(
+      final Callable<RssiFunction> functionFactory) {
+    return new ObservableTransformer<WifiScanSnapshot, RssiReading>() {
+      @Override public ObservableSource<RssiReading> apply(
+          final Observable<WifiScanSnapshot> upstream) {
+        return Observable.defer(new Callable<ObservableSource<RssiReading>>() {
+          @Override public ObservableSource<RssiReading> call() throws Exception {
+            return upstream.concatMapIterable(functionFactory.call());
+          }
+        });
+      }
+    };
+  }
+
+  /**
+   * Base function computing value for each Access Point updated since the previous snapshot.
+   * It assigns slots to Access Points, so subclasses keep their state in arrays indexed
+   * with the same slots and reset it, when the slot is assigned to a new Access Point.
+   */
+  private abstract static class RssiFunction
+      implements Function<WifiScanSnapshot, Iterable<RssiReading>> {
+    private final BssidSlots slots;
+    private final long[] timestamps;
+
+    private RssiFunction(final int maxAccessPoints) {
+      this.slots = new BssidSlots(maxAccessPoints);
+      this.timestamps = new long[maxAccessPoints];
+    }
+
+    @Override public Iterable<RssiReading> apply(final WifiScanSnapshot snapshot) {
+      final List<RssiReading> readings = new ArrayList<>(snapshot.size());
+      for (int i = 0; i < snapshot.size(); i++) {
+        final long bssid = snapshot.getBssid(i);
+        if (bssid == WifiScanSnapshot.INVALID_BSSID) {
+          continue;
+        }
+        final long timestamp = snapshot.getTimestamp(i);
+        int slot = slots.find(bssid);
+        final boolean inserted = slot < 0;
+        if (inserted) {
+          slot = slots.insert(bssid);
+        } else if (timestamp <= timestamps[slot]) {
+          // entry hasn't been updated by a scan since the previous snapshot
+          continue;
+        }
+        timestamps[slot] = timestamp;
+        final int rssi = snapshot.getRssi(i);
+        readings.add(
+            new RssiReading(bssid, timestamp, rssi, compute(slot, timestamp, rssi, inserted)));
+      }
+      return readings;
+    }
+
+    /**
+     * Computes value for the Access Point
+     *
+     * @param slot of the Access Point
+     * @param timestamp of the sample
+     * @param rssi of the sample
+     * @param inserted true if the slot has been assigned to the Access Point just now,
+     * so its state has to be reset
+     * @return computed value
+     */
+    abstract double compute(int slot, long timestamp, int rssi, boolean inserted);
+  }
+
+  private static final class EwmaFunction extends RssiFunction {
+    private final double alpha;
+    private final double[] averages;
+
+    private EwmaFunction(final double alpha, final int maxAccessPoints) {
+      super(maxAccessPoints);
+      this.alpha = alpha;
+      this.averages = new double[maxAccessPoints];
+    }
+
+    @Override double compute(final int slot, final long timestamp, final int rssi,
+        final boolean inserted) {
+      if (inserted) {
+        averages[slot] = rssi;
+      } else {
+        averages[slot] += alpha * (rssi - averages[slot]);
+      }
+      return averages[slot];
+    }
+  }
+
+  private static final class KalmanFunction extends RssiFunction {
+    private final double processNoise;
+    private final double measurementNoise;
+    private final double[] estimates;
+    private final double[] errors;
+
+    private KalmanFunction(final double processNoise, final double measurementNoise,
+        final int maxAccessPoints) {
+      super(maxAccessPoints);
+      this.processNoise = processNoise;
+      this.measurementNoise = measurementNoise;
+      this.estimates = new double[maxAccessPoints];
+      this.errors = new double[maxAccessPoints];
+    }
+
+    @Override double compute(final int slot, final long timestamp, final int rssi,
+        final boolean inserted) {
+      if (inserted) {
+        estimates[slot] = rssi;
+        errors[slot] = measurementNoise;
+        return rssi;
+      }
+
+      final double predictedError = errors[slot] + processNoise;
+      final double gain = predictedError / (predictedError + measurementNoise);
+      estimates[slot] += gain * (rssi - estimates[slot]);
+      errors[slot] = (1 - gain) * predictedError;
+      return estimates[slot];
+    }
+  }
+
+  private static final class PercentileFunction extends RssiFunction {
+    private final double percentile;
+    private final RssiHistory history;
+
+    private PercentileFunction(final double percentile, final int windowSize,
+        final int maxAccessPoints) {
+      super(maxAccessPoints);
+      this.percentile = percentile;
+      this.history = new RssiHistory(windowSize, maxAccessPoints);
+    }
+
+    @Override double compute(final int slot, final long timestamp, final int rssi,
+        final boolean inserted) {
+      if (inserted) {
+        history.clear(slot);
+      }
+      history.addToSlot(slot, timestamp, rssi);
+      return history.percentileOfSlot(slot, percentile);
+    }
+  }
+}
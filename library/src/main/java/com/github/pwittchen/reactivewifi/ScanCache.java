@@ -0,0 +1,263 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivewifi;
+
+import android.content.Context;
+import android.util.Log;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.zip.CRC32;
+
+/**
+ * ScanCache persists WiFi scan snapshots in an append-only log in a memory-mapped file,
+ * so the last known scan results can be emitted immediately after the application starts.
+ * The file is mapped with its size limit. When the next snapshot doesn't fit into the file
+ * anymore, the log is compacted: the latest record is copied to the beginning of the file,
+ * older records are dropped and the snapshot is appended after it. When both records don't
+ * fit, only the new snapshot is kept, so size of the file never exceeds its limit.
+ * Each record is protected with CRC32, so partially written records are ignored.
+ * Methods of this class are thread-safe, but they block on file I/O, so they shouldn't
+ * be called on the main thread. ReactiveWifi.observeWifiScanSnapshots(context, scanCache)
+ * calls them on background threads.
+ */
+public class ScanCache {
+  public static final int DEFAULT_MAX_FILE_SIZE = 64 * 1024;
+  private static final String LOG_TAG = "ReactiveWifi";
+  private static final String FILE_NAME = "reactivewifi_scan_cache";
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  private static final int MAGIC = 0x52574631;
+  private static final int HEADER_SIZE = 12;
+  private static final int RECORD_HEADER_SIZE = 12;
+  private static final int ACCESS_POINT_SIZE = 26;
+  private static final short NO_SSID = -1;
+
+  private final File file;
+  private final int maxFileSize;
+  private MappedByteBuffer buffer;
+
+  /**
+   * Creates ScanCache in cache directory of the application
+   *
+   * @param context Context of the activity or an application
+   * @return ScanCache
+   */
+  public static ScanCache create(final Context context) {
+    return new ScanCache(new File(context.getCacheDir(), FILE_NAME), DEFAULT_MAX_FILE_SIZE);
+  }
+
+  /**
+   * Creates ScanCache
+   *
+   * @param file where snapshots are persisted
+   * @param maxFileSize max size of the file in bytes
+   */
+  public ScanCache(final File file, final int maxFileSize) {
+    if (maxFileSize <= HEADER_SIZE + RECORD_HEADER_SIZE) {
+      throw new IllegalArgumentException("maxFileSize is too small");
+    }
+    this.file = file;
+    this.maxFileSize = maxFileSize;
+  }
+
+  /**
+   * Appends snapshot to the log. Compacts the log, when the snapshot doesn't fit into it.
+   *
+   * @param snapshot of WiFi scan results
+   */
+  public synchronized void write(final WifiScanSnapshot snapshot) {
+    if (!map()) {
+      return;
+    }
+
+    final byte[][] ssids = new byte[snapshot.size()][];
+    int recordSize = RECORD_HEADER_SIZE;
+    for (int i = 0; i < snapshot.size(); i++) {
+      final String ssid = snapshot.getSsid(i);
+      ssids[i] = ssid == null ? null : ssid.getBytes(UTF_8);
+      recordSize += ACCESS_POINT_SIZE + (ssid == null ? 0 : ssids[i].length);
+    }
+
+    if (HEADER_SIZE + recordSize > maxFileSize) {
+      Log.w(LOG_TAG, "Scan snapshot is too big to be cached");
+      return;
+    }
+
+    int offset = buffer.getInt(4);
+    if (offset < HEADER_SIZE || offset + recordSize > maxFileSize) {
+      offset = compact(recordSize);
+    }
+
+    buffer.position(offset + RECORD_HEADER_SIZE);
+    buffer.putInt(snapshot.size());
+    for (int i = 0; i < snapshot.size(); i++) {
+      buffer.putLong(snapshot.getBssid(i));
+      buffer.putInt(snapshot.getRssi(i));
+      buffer.putInt(snapshot.getFrequency(i));
+      buffer.putLong(snapshot.getTimestamp(i));
+      if (ssids[i] == null) {
+        buffer.putShort(NO_SSID);
+      } else {
+        buffer.putShort((short) ssids[i].length);
+        buffer.put(ssids[i]);
+      }
+    }
+
+    buffer.putInt(offset, MAGIC);
+    buffer.putInt(offset + 4, recordSize);
+    buffer.putInt(offset + 8, checksum(offset + RECORD_HEADER_SIZE, recordSize));
+    buffer.putInt(4, offset + recordSize);
+    buffer.putInt(8, offset);
+  }
+
+  /**
+   * Reads the latest snapshot from the file
+   *
+   * @return the latest snapshot with CACHED status or null if there's no valid snapshot
+   */
+  public synchronized WifiScanSnapshot readLatest() {
+    if (!map()) {
+      return null;
+    }
+
+    final int offset = buffer.getInt(8);
+    if (validRecordSize(offset) < 0) {
+      return null;
+    }
+
+    try {
+      return decode(offset + RECORD_HEADER_SIZE);
+    } catch (BufferUnderflowException | IllegalArgumentException
+        | NegativeArraySizeException exception) {
+      Log.w(LOG_TAG, "Cached scan snapshot is corrupted", exception);
+      return null;
+    }
+  }
+
+  private WifiScanSnapshot decode(final int position) {
+    buffer.position(position);
+    final int size = buffer.getInt();
+    if (size < 0 || size > maxFileSize / ACCESS_POINT_SIZE) {
+      throw new IllegalArgumentException("invalid number of access points: " + size);
+    }
+
+    final long[] bssids = new long[size];
+    final String[] ssids = new String[size];
+    final int[] rssis = new int[size];
+    final int[] frequencies = new int[size];
+    final long[] timestamps = new long[size];
+
+    for (int i = 0; i < size; i++) {
+      bssids[i] = buffer.getLong();
+      rssis[i] = buffer.getInt();
+      frequencies[i] = buffer.getInt();
+      timestamps[i] = buffer.getLong();
+      final short ssidLength = buffer.getShort();
+      if (ssidLength != NO_SSID) {
+        final byte[] ssid = new byte[ssidLength];
+        buffer.get(ssid);
+        ssids[i] = new String(ssid, UTF_8);
+      }
+    }
+
+    return new WifiScanSnapshot(ScanStatus.CACHED, bssids, ssids, rssis, frequencies,
+        timestamps);
+  }
+
+  /**
+   * Copies the latest record to the beginning of the log, so older records are dropped.
+   * Header points to the copy only after it's written, so the latest record survives
+   * interrupted compaction.
+   *
+   * @param recordSize size of the record, which will be appended
+   * @return offset, at which the record should be written
+   */
+  private int compact(final int recordSize) {
+    final int latestOffset = buffer.getInt(8);
+    final int latestSize = validRecordSize(latestOffset);
+    if (latestSize < 0
+        || latestOffset < HEADER_SIZE + latestSize
+        || HEADER_SIZE + latestSize + recordSize > maxFileSize) {
+      // the latest record can't be kept without overwriting it, so only the new one is kept
+      return HEADER_SIZE;
+    }
+
+    final byte[] latestRecord = new byte[latestSize];
+    buffer.position(latestOffset);
+    buffer.get(latestRecord);
+    buffer.position(HEADER_SIZE);
+    buffer.put(latestRecord);
+    buffer.putInt(8, HEADER_SIZE);
+    buffer.putInt(4, HEADER_SIZE + latestSize);
+    return HEADER_SIZE + latestSize;
+  }
+
+  /**
+   * Returns size of the record at the offset
+   *
+   * @param offset of the record
+   * @return size of the record or -1 if there's no valid record at the offset
+   */
+  private int validRecordSize(final int offset) {
+    if (offset < HEADER_SIZE || offset + RECORD_HEADER_SIZE > maxFileSize) {
+      return -1;
+    }
+
+    final int recordSize = buffer.getInt(offset + 4);
+    final boolean valid = buffer.getInt(offset) == MAGIC
+        && recordSize >= RECORD_HEADER_SIZE + 4
+        && offset + recordSize <= maxFileSize
+        && buffer.getInt(offset + 8) == checksum(offset + RECORD_HEADER_SIZE, recordSize);
+    return valid ? recordSize : -1;
+  }
+
+  private int checksum(final int position, final int recordSize) {
+    final CRC32 crc = new CRC32();
+    for (int i = position; i < position - RECORD_HEADER_SIZE + recordSize; i++) {
+      crc.update(buffer.get(i));
+    }
+    return (int) crc.getValue();
+  }
+
+  private boolean map() {
+    if (buffer != null) {
+      return true;
+    }
+
+    try {
+      final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+      try {
+        buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, maxFileSize);
+      } finally {
+        randomAccessFile.close();
+      }
+    } catch (IOException exception) {
+      ReactiveWifi.onError("Could not map scan cache file", exception);
+      return false;
+    }
+
+    if (buffer.getInt(0) != MAGIC) {
+      buffer.putInt(0, MAGIC);
+      buffer.putInt(4, HEADER_SIZE);
+      buffer.putInt(8, 0);
+    }
+    return true;
+  }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivewifi;
+
+import android.annotation.SuppressLint;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.net.wifi.ScanResult;
+import android.net.wifi.WifiManager;
+import android.os.Handler;
+import java.util.List;
+
+/**
+ * ScanResultsReceiver requests WiFi scans through ScanScheduler and emits scan results
+ * only when they have actually changed. Results are read only after
+ * SCAN_RESULTS_AVAILABLE_ACTION reporting updated results (or before the first emission)
+ * and broadcasts arriving within coalescing window are handled with a single
+ * getScanResults() call. Results with the same fingerprint of scan timestamps
+ * as the previously emitted ones are not emitted again. Status of emitted results comes
+ * from EXTRA_RESULTS_UPDATED of the latest broadcast. Next scan is requested after
+ * results are read and passed to ScanScheduler, so the scheduler can adapt its interval
+ * to them. When ScanScheduler refuses a scan request, the request is retried once
+ * the next scan is allowed, so scans go on even when no other broadcast arrives.
+ */
+final class ScanResultsReceiver extends BroadcastReceiver {
+  private final WifiListener<WifiScanResults> listener;
+  private final WifiManager wifiManager;
+  private final ScanScheduler scanScheduler;
+  private final Runnable fetchScanResults = new Runnable() {
+    @Override public void run() {
+      fetchPending = false;
+      fetchScanResults();
+    }
+  };
+  private final Runnable retryScan = new Runnable() {
+    @Override public void run() {
+      requestScan();
+    }
+  };
+  private final Handler handler;
+  private boolean fetchPending;
+  private volatile boolean cancelled;
+  private boolean emitted;
+  private long emittedFingerprint;
+  private ScanStatus status = ScanStatus.THROTTLED;
+
+  ScanResultsReceiver(final WifiListener<WifiScanResults> listener,
+      final WifiManager wifiManager, final ScanScheduler scanScheduler, final Handler handler) {
+    this.listener = listener;
+    this.wifiManager = wifiManager;
+    this.scanScheduler = scanScheduler;
+    this.handler = handler;
+  }
+
+  @Override public void onReceive(final Context context, final Intent intent) {
+    boolean resultsUpdated = false;
+
+    if (WifiManager.SCAN_RESULTS_AVAILABLE_ACTION.equals(intent.getAction())) {
+      resultsUpdated = intent.getBooleanExtra(WifiManager.EXTRA_RESULTS_UPDATED, true);
+      status = resultsUpdated ? ScanStatus.FRESH : ScanStatus.THROTTLED;
+      scanScheduler.onScanResults(resultsUpdated);
+    }
+
+    if (resultsUpdated || !emitted) {
+      // scan is requested again after reading results, so scheduler can adapt to them first
+      scheduleFetch();
+    } else {
+      // we need to request scan again to get fresh results ASAP
+      requestScan();
+    }
+  }
+
+  /**
+   * Requests the first scan on the thread of the handler, so it's retried when refused
+   */
+  void start() {
+    handler.post(retryScan);
+  }
+
+  /**
+   * Stops reading scan results and retrying scans, which were scheduled before the receiver
+   * was unsubscribed
+   */
+  void cancel() {
+    cancelled = true;
+    handler.removeCallbacks(retryScan);
+    handler.removeCallbacks(fetchScanResults);
+  }
+
+  private void requestScan() {
+    if (cancelled) {
+      return;
+    }
+    // pending retry is posted again, because scan interval may have changed since then
+    handler.removeCallbacks(retryScan);
+    if (!scanScheduler.requestScan(wifiManager)) {
+      handler.postDelayed(retryScan, scanScheduler.getNextScanDelay());
+    }
+  }
+
+  private void scheduleFetch() {
+    final long coalescingWindow = scanScheduler.getCoalescingWindow();
+
+    if (coalescingWindow <= 0) {
+      fetchScanResults();
+      return;
+    }
+
+    if (fetchPending) {
+      return;
+    }
+
+    fetchPending = true;
+    handler.postDelayed(fetchScanResults, coalescingWindow);
+  }
+
+  @SuppressLint("MissingPermission") private void fetchScanResults() {
+    if (cancelled) {
+      return;
+    }
+
+    final List<ScanResult> scanResults = ReactiveWifi.readScanResults(wifiManager);
+    scanScheduler.onScanResultsRead(scanResults);
+    requestScan();
+    final long fingerprint = fingerprint(scanResults);
+
+    if (emitted && fingerprint == emittedFingerprint) {
+      ReactiveWifi.getMetrics().onDuplicateSkipped(WifiManager.SCAN_RESULTS_AVAILABLE_ACTION);
+      return;
+    }
+
+    emitted = true;
+    emittedFingerprint = fingerprint;
+    ReactiveWifi.getMetrics().onEmission(WifiManager.SCAN_RESULTS_AVAILABLE_ACTION);
+    listener.onNext(new WifiScanResults(scanResults, status));
+  }
+
+  /**
+   * Creates fingerprint of scan results, which doesn't depend on their order.
+   * Each scan result gets new timestamp, when it's updated by a scan.
+   */
+  static long fingerprint(final List<ScanResult> scanResults) {
+    long fingerprint = scanResults.size();
+    for (ScanResult scanResult : scanResults) {
+      fingerprint += mix(scanResult.timestamp);
+    }
+    return fingerprint;
+  }
+
+  private static long mix(final long value) {
+    long mixed = (value ^ (value >>> 33)) * 0xff51afd7ed558ccdL;
+    mixed = (mixed ^ (mixed >>> 33)) * 0xc4ceb9fe1a85ec53L;
+    return mixed ^ (mixed >>> 33);
+  }
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivewifi;
+
+import android.annotation.SuppressLint;
+import android.net.wifi.ScanResult;
+import android.net.wifi.WifiManager;
+import android.os.SystemClock;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ScanScheduler owns all WiFi scan requests of the library.
+ * It allows to start at most scanBudget scans within budgetPeriod, keeps minimal interval
+ * between consecutive scans and backs off exponentially when scan fails or is throttled
+ * by the system. Default configuration follows Android foreground throttling policy,
+ * which allows 4 scans per 2 minutes. Scan results broadcasts arriving within
+ * coalescing window are handled with a single read of scan results.
+ */
+public class ScanScheduler {
+  public static final int DEFAULT_SCAN_BUDGET = 4;
+  public static final long DEFAULT_BUDGET_PERIOD_MS = TimeUnit.MINUTES.toMillis(2);
+  public static final long DEFAULT_MIN_INTERVAL_MS = TimeUnit.SECONDS.toMillis(30);
+  public static final long DEFAULT_MAX_BACKOFF_MS = TimeUnit.MINUTES.toMillis(10);
+  public static final long DEFAULT_COALESCING_WINDOW_MS = 250;
+
+  private final long budgetPeriod;
+  private final long minInterval;
+  private final long maxBackoff;
+  private final long coalescingWindow;
+  private final long[] scanTimestamps;
+  private int nextScanSlot;
+  private int scanCount;
+  private int failures;
+  private long lastScanTimestamp;
+  private long backoffEndTimestamp;
+  private boolean scanInProgress;
+
+  /**
+   * Creates ScanScheduler with default configuration
+   */
+  public ScanScheduler() {
+    this(DEFAULT_SCAN_BUDGET, DEFAULT_BUDGET_PERIOD_MS, DEFAULT_MIN_INTERVAL_MS,
+        DEFAULT_MAX_BACKOFF_MS, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Creates ScanScheduler with custom configuration
+   *
+   * @param scanBudget max number of scans, which can be started within budget period
+   * @param budgetPeriod period of time, in which scan budget is counted
+   * @param minInterval minimal interval between two consecutive scans and initial backoff
+   * @param maxBackoff max interval between two consecutive scans after failures
+   * @param unit time unit of budgetPeriod, minInterval and maxBackoff
+   */
+  public ScanScheduler(final int scanBudget, final long budgetPeriod, final long minInterval,
+      final long maxBackoff, final TimeUnit unit) {
+    this(scanBudget, budgetPeriod, minInterval, maxBackoff,
+        unit.convert(DEFAULT_COALESCING_WINDOW_MS, TimeUnit.MILLISECONDS), unit);
+  }
+
+  /**
+   * Creates ScanScheduler with custom configuration
+   *
+   * @param scanBudget max number of scans, which can be started within budget period
+   * @param budgetPeriod period of time, in which scan budget is counted
+   * @param minInterval minimal interval between two consecutive scans and initial backoff
+   * @param maxBackoff max interval between two consecutive scans after failures
+   * @param coalescingWindow window, in which scan results broadcasts are coalesced
+   * into a single read of scan results; zero disables coalescing
+   * @param unit time unit of budgetPeriod, minInterval, maxBackoff and coalescingWindow
+   */
+  public ScanScheduler(final int scanBudget, final long budgetPeriod, final long minInterval,
+      final long maxBackoff, final long coalescingWindow, final TimeUnit unit) {
+    if (scanBudget <= 0) {
+      throw new IllegalArgumentException("scanBudget has to be greater than zero");
+    }
+    if (budgetPeriod < 0 || minInterval < 0 || maxBackoff < minInterval) {
+      throw new IllegalArgumentException(
+          "budgetPeriod and minInterval can't be negative and maxBackoff can't be lower "
+              + "than minInterval");
+    }
+    if (coalescingWindow < 0) {
+      throw new IllegalArgumentException("coalescingWindow can't be negative");
+    }
+    this.scanTimestamps = new long[scanBudget];
+    this.budgetPeriod = unit.toMillis(budgetPeriod);
+    this.minInterval = unit.toMillis(minInterval);
+    this.maxBackoff = unit.toMillis(maxBackoff);
+    this.coalescingWindow = unit.toMillis(coalescingWindow);
+  }
+
+  /**
+   * Starts WiFi scan if scan budget, minimal interval and current backoff allow that
+   *
+   * @param wifiManager used for starting scan
+   * @return true if scan was started, false if it was refused by scheduler or the system
+   */
+  @SuppressLint("MissingPermission")
+  public synchronized boolean requestScan(final WifiManager wifiManager) {
+    final long now = now();
+
+    if (!canScan(now)) {
+      ReactiveWifi.getMetrics().onScanRequested(false);
+      return false;
+    }
+
+    scanTimestamps[nextScanSlot] = now;
+    nextScanSlot = (nextScanSlot + 1) % scanTimestamps.length;
+    scanCount = Math.min(scanCount + 1, scanTimestamps.length);
+    lastScanTimestamp = now;
+
+    @SuppressWarnings("deprecation") final boolean started = wifiManager.startScan();
+    if (started) {
+      scanInProgress = true;
+    } else {
+      onScanFailed(now);
+    }
+    ReactiveWifi.getMetrics().onScanRequested(started);
+    return started;
+  }
+
+  /**
+   * Notifies scheduler about scan results delivered by the system
+   *
+   * @param updated true if scan succeeded and results were updated, false if scan failed
+   * or was throttled and results come from the previous scan
+   */
+  public synchronized void onScanResults(final boolean updated) {
+    if (updated) {
+      failures = 0;
+      backoffEndTimestamp = 0;
+    } else if (scanInProgress) {
+      // results of the same broadcast may be reported by many observers, so backoff grows
+      // only once per failed scan started by this scheduler
+      onScanFailed(now());
+    }
+    scanInProgress = false;
+  }
+
+  /**
+   * Notifies scheduler about scan results read after their broadcast.
+   * Default scheduler ignores them, subclasses can use them to adapt scan interval.
+   *
+   * @param scanResults list of scan results returned by WifiManager
+   */
+  public void onScanResultsRead(final List<ScanResult> scanResults) {
+  }
+
+  /**
+   * Returns time left until scan budget, minimal interval and current backoff allow
+   * to start the next scan
+   *
+   * @return delay in milliseconds or 0 if scan can be started now
+   */
+  public synchronized long getNextScanDelay() {
+    long nextScanTimestamp = backoffEndTimestamp;
+    if (scanCount > 0) {
+      nextScanTimestamp = Math.max(nextScanTimestamp, lastScanTimestamp + getScanInterval());
+    }
+    if (scanCount >= scanTimestamps.length) {
+      nextScanTimestamp =
+          Math.max(nextScanTimestamp, scanTimestamps[nextScanSlot] + budgetPeriod);
+    }
+    return Math.max(0, nextScanTimestamp - now());
+  }
+
+  /**
+   * Returns window, in which scan results broadcasts are coalesced
+   *
+   * @return coalescing window in milliseconds
+   */
+  public long getCoalescingWindow() {
+    return coalescingWindow;
+  }
+
+  protected long now() {
+    return SystemClock.elapsedRealtime();
+  }
+
+  /**
+   * Returns minimal interval between two consecutive scans. It's called while holding
+   * the lock of the scheduler, so subclasses can change it in synchronized methods.
+   *
+   * @return interval in milliseconds
+   */
+  protected long getScanInterval() {
+    return minInterval;
+  }
+
+  private boolean canScan(final long now) {
+    if (now < backoffEndTimestamp) {
+      return false;
+    }
+
+    if (scanCount > 0 && now - lastScanTimestamp < getScanInterval()) {
+      return false;
+    }
+
+    if (scanCount >= scanTimestamps.length) {
+      return now - scanTimestamps[nextScanSlot] >= budgetPeriod;
+    }
+
+    return true;
+  }
+
+  private void onScanFailed(final long now) {
+    failures++;
+    long backoff = Math.max(minInterval, 1);
+    for (int i = 1; i < failures && backoff <= maxBackoff >> 1; i++) {
+      backoff <<= 1;
+    }
+    backoffEndTimestamp = now + Math.min(backoff, maxBackoff);
+  }
+}
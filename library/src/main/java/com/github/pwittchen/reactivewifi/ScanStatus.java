@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivewifi;
+
+/**
+ * Status of the WiFi scan results.
+ * FRESH means that results come from the latest requested scan.
+ * THROTTLED means that newer scan was refused by ScanScheduler or failed
+ * and results come from one of the previous scans.
+ * CACHED means that results were read from ScanCache and may come from the previous run
+ * of the application.
+ */
+public enum ScanStatus {
+  FRESH("fresh"),
+  THROTTLED("throttled"),
+  CACHED("cached");
+
+  public final String description;
+
+  ScanStatus(final String description) {
+    this.description = description;
+  }
+
+  @Override public String toString() {
+    return "ScanStatus{" + "description='" + description + '\'' + '}';
+  }
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivewifi;
+
+import io.reactivex.functions.Function;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * ScanWindowAggregator aggregates RSSI of each Access Point in time windows.
+ * Window is split into panes as long as the slide of the window. Each sighting updates
+ * statistics of the current pane, so state is updated incrementally per scan.
+ * When the current pane closes, statistics of the panes covered by the window are merged
+ * into WifiWindowSummary. Panes and their statistics are preallocated, so memory is constant.
+ * Windows are driven by timestamps of scan results, so sightings older than the current pane
+ * are ignored. It keeps state, so a new instance has to be used for each subscription.
+ */
+final class ScanWindowAggregator
+    implements Function<WifiScanSnapshot, Iterable<WifiWindowSummary>> {
+  private final long windowSize;
+  private final long slide;
+  private final Pane[] panes;
+  private final Pane merged;
+  private int currentPane;
+  private long currentPaneStart = Long.MIN_VALUE;
+
+  ScanWindowAggregator(final long windowSize, final long slide, final int maxAccessPoints) {
+    checkWindow(windowSize, slide);
+    this.windowSize = windowSize;
+    this.slide = slide;
+    this.panes = new Pane[(int) (windowSize / slide)];
+    for (int i = 0; i < panes.length; i++) {
+      panes[i] = new Pane(maxAccessPoints);
+    }
+    this.merged = new Pane(maxAccessPoints);
+  }
+
+  static void checkWindow(final long windowSize, final long slide) {
+    if (slide <= 0 || windowSize < slide || windowSize % slide != 0) {
+      throw new IllegalArgumentException(
+          "slide has to be greater than zero and window size has to be a multiple of the slide");
+    }
+  }
+
+  @Override public Iterable<WifiWindowSummary> apply(final WifiScanSnapshot snapshot) {
+    long scanTime = Long.MIN_VALUE;
+    for (int i = 0; i < snapshot.size(); i++) {
+      scanTime = Math.max(scanTime, snapshot.getTimestamp(i));
+    }
+
+    if (scanTime == Long.MIN_VALUE) {
+      return Collections.emptyList();
+    }
+
+    final List<WifiWindowSummary> summaries = advance(scanTime - Math.floorMod(scanTime, slide));
+    final Pane pane = panes[currentPane];
+
+    for (int i = 0; i < snapshot.size(); i++) {
+      final long bssid = snapshot.getBssid(i);
+      final long timestamp = snapshot.getTimestamp(i);
+      if (bssid != WifiScanSnapshot.INVALID_BSSID && timestamp >= currentPaneStart) {
+        pane.add(bssid, snapshot.getRssi(i), timestamp);
+      }
+    }
+
+    return summaries;
+  }
+
+  private List<WifiWindowSummary> advance(final long paneStart) {
+    if (currentPaneStart == Long.MIN_VALUE) {
+      currentPaneStart = paneStart;
+      return Collections.emptyList();
+    }
+
+    List<WifiWindowSummary> summaries = Collections.emptyList();
+    int closedPanes = 0;
+
+    while (currentPaneStart < paneStart) {
+      if (closedPanes < panes.length) {
+        final WifiWindowSummary summary = summarize(currentPaneStart + slide);
+        if (summary != null) {
+          if (summaries.isEmpty()) {
+            summaries = new ArrayList<>();
+          }
+          summaries.add(summary);
+        }
+        closedPanes++;
+      }
+
+      currentPane = (currentPane + 1) % panes.length;
+      panes[currentPane].clear();
+
+      // after a long gap all panes are empty, so we can jump to the new pane
+      currentPaneStart = closedPanes >= panes.length ? paneStart : currentPaneStart + slide;
+    }
+
+    return summaries;
+  }
+
+  private WifiWindowSummary summarize(final long windowEnd) {
+    merged.clear();
+    for (Pane pane : panes) {
+      merged.merge(pane);
+    }
+
+    final int size = merged.slots.size();
+    if (size == 0) {
+      return null;
+    }
+
+    final long[] bssids = new long[size];
+    final double[] meanRssis = new double[size];
+    for (int slot = 0; slot < size; slot++) {
+      bssids[slot] = merged.slots.getBssid(slot);
+      meanRssis[slot] = (double) merged.sums[slot] / merged.sightings[slot];
+    }
+
+    return new WifiWindowSummary(windowEnd - windowSize, windowEnd, bssids,
+        copyOf(merged.minRssis, size), copyOf(merged.maxRssis, size), meanRssis,
+        copyOf(merged.sightings, size), copyOf(merged.firstSeen, size),
+        copyOf(merged.lastSeen, size));
+  }
+
+  private static int[] copyOf(final int[] array, final int size) {
+    final int[] copy = new int[size];
+    System.arraycopy(array, 0, copy, 0, size);
+    return copy;
+  }
+
+  private static long[] copyOf(final long[] array, final int size) {
+    final long[] copy = new long[size];
+    System.arraycopy(array, 0, copy, 0, size);
+    return copy;
+  }
+
+  /**
+   * Statistics of Access Points seen within a single pane
+   */
+  private static final class Pane {
+    private final BssidSlots slots;
+    private final int[] minRssis;
+    private final int[] maxRssis;
+    private final long[] sums;
+    private final int[] sightings;
+    private final long[] firstSeen;
+    private final long[] lastSeen;
+
+    private Pane(final int maxAccessPoints) {
+      slots = new BssidSlots(maxAccessPoints);
+      minRssis = new int[maxAccessPoints];
+      maxRssis = new int[maxAccessPoints];
+      sums = new long[maxAccessPoints];
+      sightings = new int[maxAccessPoints];
+      firstSeen = new long[maxAccessPoints];
+      lastSeen = new long[maxAccessPoints];
+    }
+
+    private void add(final long bssid, final int rssi, final long timestamp) {
+      int slot = slots.find(bssid);
+      if (slot < 0) {
+        slot = slots.insert(bssid);
+        reset(slot, rssi, rssi, rssi, 1, timestamp, timestamp);
+        return;
+      }
+
+      if (timestamp <= lastSeen[slot]) {
+        return; // the same sighting was already counted
+      }
+
+      minRssis[slot] = Math.min(minRssis[slot], rssi);
+      maxRssis[slot] = Math.max(maxRssis[slot], rssi);
+      sums[slot] += rssi;
+      sightings[slot]++;
+      lastSeen[slot] = timestamp;
+    }
+
+    private void merge(final Pane pane) {
+      for (int other = 0; other < pane.slots.size(); other++) {
+        final long bssid = pane.slots.getBssid(other);
+        int slot = slots.find(bssid);
+        if (slot < 0) {
+          slot = slots.insert(bssid);
+          reset(slot, pane.minRssis[other], pane.maxRssis[other], pane.sums[other],
+              pane.sightings[other], pane.firstSeen[other], pane.lastSeen[other]);
+          continue;
+        }
+
+        minRssis[slot] = Math.min(minRssis[slot], pane.minRssis[other]);
+        maxRssis[slot] = Math.max(maxRssis[slot], pane.maxRssis[other]);
+        sums[slot] += pane.sums[other];
+        sightings[slot] += pane.sightings[other];
+        firstSeen[slot] = Math.min(firstSeen[slot], pane.firstSeen[other]);
+        lastSeen[slot] = Math.max(lastSeen[slot], pane.lastSeen[other]);
+      }
+    }
+
+    private void reset(final int slot, final int minRssi, final int maxRssi, final long sum,
+        final int sightingsCount, final long first, final long last) {
+      minRssis[slot] = minRssi;
+      maxRssis[slot] = maxRssi;
+      sums[slot] = sum;
+      sightings[slot] = sightingsCount;
+      firstSeen[slot] = first;
+      lastSeen[slot] = last;
+    }
+
+    private void clear() {
+      slots.clear();
+    }
+  }
+}
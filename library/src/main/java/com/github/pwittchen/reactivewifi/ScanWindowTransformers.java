@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivewifi;
+
+import io.reactivex.Observable;
+import io.reactivex.ObservableSource;
+import io.reactivex.ObservableTransformer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ScanWindowTransformers contains RxJava transformers, which aggregate stream of WiFi scan
+ * snapshots into WifiWindowSummaries with statistics of each Access Point in tumbling
+ * or sliding time windows. Window is emitted when the first scan after its end arrives.
+ */
+public final class ScanWindowTransformers {
+  public static final int DEFAULT_MAX_ACCESS_POINTS = 256;
+
+  private ScanWindowTransformers() {
+  }
+
+  /**
+   * Aggregates Access Points in consecutive, non-overlapping windows
+   *
+   * @param windowSize length of the window
+   * @param unit time unit of the window size
+   * @return RxJava transformer emitting WifiWindowSummary for each window
+   */
+  public static ObservableTransformer<WifiScanSnapshot, WifiWindowSummary> tumbling(
+      final long windowSize, final TimeUnit unit) {
+    return sliding(windowSize, windowSize, unit);
+  }
+
+  /**
+   * Aggregates Access Points in overlapping windows started every slide
+   *
+   * @param windowSize length of the window, which has to be a multiple of the slide
+   * @param slide interval between starts of the consecutive windows
+   * @param unit time unit of the window size and the slide
+   * @return RxJava transformer emitting WifiWindowSummary for each window
+   */
+  public static ObservableTransformer<WifiScanSnapshot, WifiWindowSummary> sliding(
+      final long windowSize, final long slide, final TimeUnit unit) {
+    final long windowSizeUs = unit.toMicros(windowSize);
+    final long slideUs = unit.toMicros(slide);
+    ScanWindowAggregator.checkWindow(windowSizeUs, slideUs);
+
+    return new ObservableTransformer<WifiScanSnapshot, WifiWindowSummary>() {
+      @Override public ObservableSource<WifiWindowSummary> apply(
+          final Observable<WifiScanSnapshot> upstream) {
+        return Observable.defer(new Callable<ObservableSource<WifiWindowSummary>>() {
+          @Override public ObservableSource<WifiWindowSummary> call() {
+            return upstream.concatMapIterable(
+                new ScanWindowAggregator(windowSizeUs, slideUs, DEFAULT_MAX_ACCESS_POINTS));
+          }
+        });
+      }
+    };
+  }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivewifi;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.net.wifi.WifiManager;
+
+/**
+ * SignalLevelReceiver reads RSSI directly from RSSI_CHANGED_ACTION broadcast,
+ * quantizes it into signal level with SignalQuantizer and passes the level further
+ * only when it has changed. Connection info is read only when broadcast doesn't contain RSSI.
+ */
+abstract class SignalLevelReceiver extends BroadcastReceiver {
+  static final int UNKNOWN = Integer.MIN_VALUE;
+  private final WifiManager wifiManager;
+  private final SignalQuantizer quantizer;
+  private int lastLevel = SignalQuantizer.UNKNOWN_LEVEL;
+
+  SignalLevelReceiver(final WifiManager wifiManager, final SignalQuantizer quantizer) {
+    this.wifiManager = wifiManager;
+    this.quantizer = quantizer;
+  }
+
+  @Override public void onReceive(final Context context, final Intent intent) {
+    int rssi = intent.getIntExtra(WifiManager.EXTRA_NEW_RSSI, UNKNOWN);
+    if (rssi == UNKNOWN) {
+      rssi = ReactiveWifi.getConnectionInfo(wifiManager).getRssi();
+    }
+
+    final int level = quantizer.quantize(rssi, lastLevel);
+
+    if (level != lastLevel) {
+      lastLevel = level;
+      onSignalLevelChanged(level);
+    } else {
+      ReactiveWifi.getMetrics().onDuplicateSkipped(WifiManager.RSSI_CHANGED_ACTION);
+    }
+  }
+
+  /**
+   * Called when quantized signal level has changed
+   *
+   * @param level new signal level
+   */
+  abstract void onSignalLevelChanged(int level);
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivewifi;
+
+import java.util.Arrays;
+
+/**
+ * SignalQuantizer converts RSSI into signal level with a table of thresholds.
+ * Level i + 1 is reached when RSSI is greater than or equal to thresholds[i]
+ * and it's left only when RSSI drops below thresholds[i] - hysteresis[i],
+ * so RSSI fluctuating around the threshold doesn't make the level flap.
+ * This class is immutable.
+ */
+public final class SignalQuantizer {
+  public static final int UNKNOWN_LEVEL = -1;
+  private static final int MIN_RSSI = -100;
+  private static final int MAX_RSSI = -55;
+  private final int[] thresholds;
+  private final int[] hysteresis;
+
+  /**
+   * Creates SignalQuantizer with the same hysteresis margin for all boundaries
+   *
+   * @param thresholds ascending RSSI values in dBm, at which the next level is reached
+   * @param hysteresis margin in dB below the threshold, which has to be crossed
+   * to go back to the lower level
+   */
+  public SignalQuantizer(final int[] thresholds, final int hysteresis) {
+    this(thresholds, fill(thresholds.length, hysteresis));
+  }
+
+  /**
+   * Creates SignalQuantizer
+   *
+   * @param thresholds ascending RSSI values in dBm, at which the next level is reached
+   * @param hysteresis margins in dB below each threshold, which have to be crossed
+   * to go back to the lower level
+   */
+  public SignalQuantizer(final int[] thresholds, final int[] hysteresis) {
+    if (thresholds.length != hysteresis.length) {
+      throw new IllegalArgumentException("each threshold has to have hysteresis margin");
+    }
+    for (int i = 0; i < thresholds.length; i++) {
+      if (i > 0 && thresholds[i] < thresholds[i - 1]) {
+        throw new IllegalArgumentException("thresholds have to be sorted in ascending order");
+      }
+      if (hysteresis[i] < 0) {
+        throw new IllegalArgumentException("hysteresis cannot be negative");
+      }
+    }
+    this.thresholds = thresholds.clone();
+    this.hysteresis = hysteresis.clone();
+  }
+
+  /**
+   * Creates SignalQuantizer without hysteresis, which returns the same levels
+   * as deprecated WifiManager.calculateSignalLevel(int, int) method
+   *
+   * @param numLevels number of levels
+   * @return SignalQuantizer with thresholds evenly spread between -100 and -55 dBm
+   */
+  public static SignalQuantizer fromNumLevels(final int numLevels) {
+    return fromNumLevels(numLevels, 0);
+  }
+
+  /**
+   * Creates SignalQuantizer with thresholds of deprecated
+   * WifiManager.calculateSignalLevel(int, int) method and hysteresis
+   *
+   * @param numLevels number of levels
+   * @param hysteresis margin in dB below each threshold, which has to be crossed
+   * to go back to the lower level
+   * @return SignalQuantizer with thresholds evenly spread between -100 and -55 dBm
+   */
+  public static SignalQuantizer fromNumLevels(final int numLevels, final int hysteresis) {
+    if (numLevels <= 0) {
+      throw new IllegalArgumentException("numLevels has to be greater than zero");
+    }
+    final int[] thresholds = new int[numLevels - 1];
+    final int range = MAX_RSSI - MIN_RSSI;
+    for (int level = 1; level < numLevels; level++) {
+      // the lowest RSSI, for which (rssi - MIN_RSSI) * (numLevels - 1) / range >= level
+      thresholds[level - 1] = MIN_RSSI + (level * range + numLevels - 2) / (numLevels - 1);
+    }
+    return new SignalQuantizer(thresholds, hysteresis);
+  }
+
+  /**
+   * Returns number of levels
+   *
+   * @return number of thresholds increased by one
+   */
+  public int getNumLevels() {
+    return thresholds.length + 1;
+  }
+
+  /**
+   * Quantizes RSSI without hysteresis
+   *
+   * @param rssi in dBm
+   * @return signal level between 0 and getNumLevels() - 1
+   */
+  public int quantize(final int rssi) {
+    return quantize(rssi, UNKNOWN_LEVEL);
+  }
+
+  /**
+   * Quantizes RSSI with hysteresis applied to the current level
+   *
+   * @param rssi in dBm
+   * @param currentLevel the previous level or UNKNOWN_LEVEL
+   * @return signal level between 0 and getNumLevels() - 1
+   */
+  public int quantize(final int rssi, final int currentLevel) {
+    if (currentLevel < 0 || currentLevel > thresholds.length) {
+      int level = 0;
+      while (level < thresholds.length && rssi >= thresholds[level]) {
+        level++;
+      }
+      return level;
+    }
+
+    int level = currentLevel;
+    while (level < thresholds.length && rssi >= thresholds[level]) {
+      level++;
+    }
+    while (level > 0 && rssi < thresholds[level - 1] - hysteresis[level - 1]) {
+      level--;
+    }
+    return level;
+  }
+
+  private static int[] fill(final int length, final int value) {
+    final int[] values = new int[length];
+    Arrays.fill(values, value);
+    return values;
+  }
+
+  @Override public String toString() {
+    return "SignalQuantizer{" + "thresholds=" + Arrays.toString(thresholds) + ", hysteresis="
+        + Arrays.toString(hysteresis) + '}';
+  }
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivewifi;
+
+import android.net.wifi.SupplicantState;
+import android.net.wifi.WifiManager;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SyntheticWifiTrace generates WiFi traces of a device walking between Access Points.
+ * Access Points are placed randomly in a square area, device moves between random waypoints
+ * and RSSI follows log-distance path loss model with gaussian noise. Device is connected
+ * to the strongest Access Point and roams when another one is stronger by the roaming margin.
+ * The same seed generates the same trace.
+ */
+public final class SyntheticWifiTrace {
+  public static final long DEFAULT_SCAN_INTERVAL_MS = TimeUnit.SECONDS.toMillis(10);
+  public static final long DEFAULT_RSSI_INTERVAL_MS = TimeUnit.SECONDS.toMillis(1);
+  private static final double AREA_PER_ACCESS_POINT = 400; // m^2
+  private static final double TX_POWER = -30; // dBm at 1 m
+  private static final double PATH_LOSS_EXPONENT = 3;
+  private static final double NOISE = 4; // dB
+  private static final int MIN_VISIBLE_RSSI = -95;
+  private static final int ROAMING_MARGIN = 8;
+  private static final long HANDSHAKE_STEP_NS = TimeUnit.MILLISECONDS.toNanos(20);
+  private static final int[] FREQUENCIES = { 2412, 2437, 2462, 5180, 5220, 5500, 5745 };
+  private static final SupplicantState[] ROAMING_STATES = {
+      SupplicantState.ASSOCIATING, SupplicantState.ASSOCIATED,
+      SupplicantState.FOUR_WAY_HANDSHAKE, SupplicantState.GROUP_HANDSHAKE,
+      SupplicantState.COMPLETED
+  };
+
+  private SyntheticWifiTrace() {
+  }
+
+  /**
+   * Generates trace with default scan and RSSI broadcast intervals
+   *
+   * @param accessPoints number of Access Points in the area
+   * @param walkingSpeed speed of the device in meters per second
+   * @param duration of the trace
+   * @param unit time unit of the duration
+   * @param seed of the random generator
+   * @return events ordered by their timestamps
+   */
+  public static List<WifiTraceEvent> mobility(final int accessPoints, final double walkingSpeed,
+      final long duration, final TimeUnit unit, final long seed) {
+    return mobility(accessPoints, walkingSpeed, DEFAULT_SCAN_INTERVAL_MS,
+        DEFAULT_RSSI_INTERVAL_MS, unit.toMillis(duration), TimeUnit.MILLISECONDS, seed);
+  }
+
+  /**
+   * Generates trace
+   *
+   * @param accessPoints number of Access Points in the area
+   * @param walkingSpeed speed of the device in meters per second
+   * @param scanInterval interval between scan results broadcasts
+   * @param rssiInterval interval between RSSI broadcasts
+   * @param duration of the trace
+   * @param unit time unit of the intervals and the duration
+   * @param seed of the random generator
+   * @return events ordered by their timestamps
+   */
+  public static List<WifiTraceEvent> mobility(final int accessPoints, final double walkingSpeed,
+      final long scanInterval, final long rssiInterval, final long duration, final TimeUnit unit,
+      final long seed) {
+    if (accessPoints <= 0 || walkingSpeed < 0) {
+      throw new IllegalArgumentException(
+          "accessPoints has to be greater than zero and walkingSpeed can't be negative");
+    }
+    if (scanInterval <= 0 || rssiInterval <= 0 || duration < 0) {
+      throw new IllegalArgumentException(
+          "intervals have to be greater than zero and duration can't be negative");
+    }
+
+    final Random random = new Random(seed);
+    final double side = Math.sqrt(accessPoints * AREA_PER_ACCESS_POINT);
+    final double[] xs = new double[accessPoints];
+    final double[] ys = new double[accessPoints];
+    final long[] bssids = new long[accessPoints];
+    final String[] ssids = new String[accessPoints];
+    final int[] frequencies = new int[accessPoints];
+    for (int i = 0; i < accessPoints; i++) {
+      xs[i] = random.nextDouble() * side;
+      ys[i] = random.nextDouble() * side;
+      // locally administered addresses
+      bssids[i] = 0x020000000000L | (i + 1);
+      ssids[i] = "synthetic-" + (i / 4);
+      frequencies[i] = FREQUENCIES[random.nextInt(FREQUENCIES.length)];
+    }
+
+    final long scanIntervalNs = unit.toNanos(scanInterval);
+    final long rssiIntervalNs = unit.toNanos(rssiInterval);
+    final long durationNs = unit.toNanos(duration);
+    final List<WifiTraceEvent> events = new ArrayList<>();
+    events.add(WifiTraceEvent.wifiStateChanged(0, WifiManager.WIFI_STATE_ENABLED));
+
+    double x = random.nextDouble() * side;
+    double y = random.nextDouble() * side;
+    double targetX = random.nextDouble() * side;
+    double targetY = random.nextDouble() * side;
+    long now = 0;
+    long nextScan = 0;
+    long nextRssi = rssiIntervalNs;
+    int connected = -1;
+
+    while (now <= durationNs) {
+      if (nextScan <= nextRssi) {
+        final long elapsed = nextScan - now;
+        now = nextScan;
+        nextScan += scanIntervalNs;
+        if (now > durationNs) {
+          break;
+        }
+        final double step = walkingSpeed * elapsed / 1e9;
+        final double distance = Math.hypot(targetX - x, targetY - y);
+        if (distance <= step) {
+          x = targetX;
+          y = targetY;
+          targetX = random.nextDouble() * side;
+          targetY = random.nextDouble() * side;
+        } else if (distance > 0) {
+          x += (targetX - x) * step / distance;
+          y += (targetY - y) * step / distance;
+        }
+
+        final int[] rssis = new int[accessPoints];
+        int visible = 0;
+        int strongest = -1;
+        for (int i = 0; i < accessPoints; i++) {
+          rssis[i] = rssi(Math.hypot(xs[i] - x, ys[i] - y), random);
+          if (rssis[i] >= MIN_VISIBLE_RSSI) {
+            visible++;
+            if (strongest < 0 || rssis[i] > rssis[strongest]) {
+              strongest = i;
+            }
+          }
+        }
+
+        events.add(WifiTraceEvent.scanResultsAvailable(now, true,
+            createScan(bssids, ssids, rssis, frequencies, visible, now)));
+
+        if (strongest >= 0 && strongest != connected
+            && (connected < 0 || rssis[strongest] >= rssis[connected] + ROAMING_MARGIN)) {
+          for (int i = 0; i < ROAMING_STATES.length; i++) {
+            events.add(WifiTraceEvent.supplicantStateChanged(now + (i + 1) * HANDSHAKE_STEP_NS,
+                ROAMING_STATES[i]));
+          }
+          connected = strongest;
+        }
+      } else {
+        now = nextRssi;
+        nextRssi += rssiIntervalNs;
+        if (now > durationNs) {
+          break;
+        }
+        if (connected >= 0) {
+          final double distance = Math.hypot(xs[connected] - x, ys[connected] - y);
+          events.add(WifiTraceEvent.rssiChanged(now, rssi(distance, random)));
+        }
+      }
+    }
+
+    sortByTimestamp(events);
+    return events;
+  }
+
+  private static int rssi(final double distance, final Random random) {
+    final double pathLoss = 10 * PATH_LOSS_EXPONENT * Math.log10(Math.max(distance, 1));
+    return (int) Math.round(TX_POWER - pathLoss + random.nextGaussian() * NOISE);
+  }
+
+  private static WifiScanSnapshot createScan(final long[] bssids, final String[] ssids,
+      final int[] rssis, final int[] frequencies, final int visible, final long timestamp) {
+    final long[] scanBssids = new long[visible];
+    final String[] scanSsids = new String[visible];
+    final int[] scanRssis = new int[visible];
+    final int[] scanFrequencies = new int[visible];
+    final long[] scanTimestamps = new long[visible];
+    int index = 0;
+    for (int i = 0; i < rssis.length; i++) {
+      if (rssis[i] >= MIN_VISIBLE_RSSI) {
+        scanBssids[index] = bssids[i];
+        scanSsids[index] = ssids[i];
+        scanRssis[index] = rssis[i];
+        scanFrequencies[index] = frequencies[i];
+        // timestamps of scan results are expressed in microseconds
+        scanTimestamps[index] = TimeUnit.NANOSECONDS.toMicros(timestamp);
+        index++;
+      }
+    }
+    return new WifiScanSnapshot(ScanStatus.FRESH, scanBssids, scanSsids, scanRssis,
+        scanFrequencies, scanTimestamps);
+  }
+
+  private static void sortByTimestamp(final List<WifiTraceEvent> events) {
+    Collections.sort(events, new Comparator<WifiTraceEvent>() {
+      @Override public int compare(final WifiTraceEvent first, final WifiTraceEvent second) {
+        return Long.compare(first.timestamp, second.timestamp);
+      }
+    });
+  }
+}
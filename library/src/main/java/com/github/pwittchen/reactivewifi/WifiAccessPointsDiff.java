@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivewifi;
+
+import android.net.wifi.ScanResult;
+import java.util.List;
+
+/**
+ * WifiAccessPointsDiff contains Access Points added, removed and changed
+ * between two consecutive WiFi scans. Access Points are matched by their BSSID.
+ */
+public class WifiAccessPointsDiff {
+  public final List<ScanResult> added;
+  public final List<ScanResult> removed;
+  public final List<AccessPointChange> changed;
+
+  public WifiAccessPointsDiff(final List<ScanResult> added, final List<ScanResult> removed,
+      final List<AccessPointChange> changed) {
+    this.added = added;
+    this.removed = removed;
+    this.changed = changed;
+  }
+
+  public boolean isEmpty() {
+    return added.isEmpty() && removed.isEmpty() && changed.isEmpty();
+  }
+
+  @Override public String toString() {
+    return "WifiAccessPointsDiff{"
+        + "added=" + added.size()
+        + ", removed=" + removed.size()
+        + ", changed=" + changed.size()
+        + '}';
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivewifi;
+
+import io.reactivex.BackpressureOverflowStrategy;
+import io.reactivex.BackpressureStrategy;
+import io.reactivex.Flowable;
+import io.reactivex.Observable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WifiBackpressure defines how Flowables created by ReactiveWifi behave,
+ * when their consumers can't keep up with the rate of WiFi events.
+ * All strategies keep bounded number of events, so heap doesn't grow when consumers stall.
+ */
+public final class WifiBackpressure {
+  private final BackpressureStrategy strategy;
+  private final int capacity;
+  private final long samplingPeriod;
+  private final TimeUnit samplingUnit;
+
+  private WifiBackpressure(final BackpressureStrategy strategy, final int capacity,
+      final long samplingPeriod, final TimeUnit samplingUnit) {
+    this.strategy = strategy;
+    this.capacity = capacity;
+    this.samplingPeriod = samplingPeriod;
+    this.samplingUnit = samplingUnit;
+  }
+
+  /**
+   * Keeps only the latest event, when consumer is not ready
+   *
+   * @return WifiBackpressure
+   */
+  public static WifiBackpressure latest() {
+    return new WifiBackpressure(BackpressureStrategy.LATEST, 0, 0, null);
+  }
+
+  /**
+   * Drops events, when consumer is not ready
+   *
+   * @return WifiBackpressure
+   */
+  public static WifiBackpressure drop() {
+    return new WifiBackpressure(BackpressureStrategy.DROP, 0, 0, null);
+  }
+
+  /**
+   * Buffers events, when consumer is not ready. When buffer is full, the oldest event is dropped.
+   *
+   * @param capacity max number of buffered events
+   * @return WifiBackpressure
+   */
+  public static WifiBackpressure buffer(final int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity has to be greater than zero");
+    }
+    return new WifiBackpressure(BackpressureStrategy.BUFFER, capacity, 0, null);
+  }
+
+  /**
+   * Samples events at the source, so at most one (the latest) event is passed further
+   * in each period. When consumer is not ready, only the latest sampled event is kept.
+   *
+   * @param period of sampling
+   * @param unit of the period
+   * @return WifiBackpressure
+   */
+  public static WifiBackpressure sample(final long period, final TimeUnit unit) {
+    if (period <= 0) {
+      throw new IllegalArgumentException("period has to be greater than zero");
+    }
+    return new WifiBackpressure(BackpressureStrategy.LATEST, 0, period, unit);
+  }
+
+  /**
+   * Converts Observable into Flowable with this backpressure strategy
+   *
+   * @param upstream Observable with WiFi events
+   * @param <T> type of the events
+   * @return RxJava Flowable
+   */
+  public <T> Flowable<T> apply(final Observable<T> upstream) {
+    final Observable<T> source =
+        samplingUnit == null ? upstream : upstream.sample(samplingPeriod, samplingUnit);
+
+    if (strategy == BackpressureStrategy.BUFFER) {
+      return source.toFlowable(BackpressureStrategy.MISSING)
+          .onBackpressureBuffer(capacity, null, BackpressureOverflowStrategy.DROP_OLDEST);
+    }
+
+    return source.toFlowable(strategy);
+  }
+
+  @Override public String toString() {
+    return "WifiBackpressure{"
+        + "strategy=" + strategy
+        + ", capacity=" + capacity
+        + ", samplingPeriod=" + samplingPeriod
+        + ", samplingUnit=" + samplingUnit
+        + '}';
+  }
+}
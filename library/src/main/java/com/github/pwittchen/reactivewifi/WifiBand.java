@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivewifi;
+
+/**
+ * WiFi frequency band of the Access Point
+ */
+public enum WifiBand {
+  BAND_2_4_GHZ("2.4 GHz"),
+  BAND_5_GHZ("5 GHz"),
+  BAND_6_GHZ("6 GHz"),
+  UNKNOWN("unknown");
+
+  public final String description;
+
+  WifiBand(final String description) {
+    this.description = description;
+  }
+
+  /**
+   * Gets WifiBand basing on frequency
+   *
+   * @param frequency in MHz
+   * @return WifiBand enum
+   */
+  public static WifiBand fromFrequency(final int frequency) {
+    if (frequency >= 2412 && frequency <= 2484) {
+      return BAND_2_4_GHZ;
+    } else if (frequency >= 5160 && frequency <= 5885) {
+      return BAND_5_GHZ;
+    } else if (frequency >= 5955 && frequency <= 7115) {
+      return BAND_6_GHZ;
+    }
+    return UNKNOWN;
+  }
+
+  /**
+   * Gets channel number basing on frequency. Channel numbers are unique only within a band.
+   *
+   * @param frequency in MHz
+   * @return channel number or -1 if frequency doesn't belong to any known band
+   */
+  public static int getChannel(final int frequency) {
+    switch (fromFrequency(frequency)) {
+      case BAND_2_4_GHZ:
+        return frequency == 2484 ? 14 : (frequency - 2407) / 5;
+      case BAND_5_GHZ:
+        return (frequency - 5000) / 5;
+      case BAND_6_GHZ:
+        return (frequency - 5950) / 5;
+      default:
+        return -1;
+    }
+  }
+
+  @Override public String toString() {
+    return "WifiBand{" + "description='" + description + '\'' + '}';
+  }
+}
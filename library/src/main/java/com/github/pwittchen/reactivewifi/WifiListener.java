@@ -0,0 +1,39 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivewifi;
+
+/**
+ * Listener getting values observed with WifiListeners
+ *
+ * @param <T> type of observed values
+ */
+public interface WifiListener<T> {
+
+  /**
+   * Called on the thread delivering WiFi broadcasts, whenever the next value is observed
+   *
+   * @param value observed value
+   */
+  void onNext(T value);
+
+  /**
+   * Called when value can't be observed, e.g. when WifiManager is not available.
+   * No more values are delivered afterwards.
+   *
+   * @param error describing the reason
+   */
+  void onError(Throwable error);
+}
@@ -0,0 +1,549 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivewifi;
+
+import android.annotation.SuppressLint;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.net.wifi.SupplicantState;
+import android.net.wifi.WifiInfo;
+import android.net.wifi.WifiManager;
+import android.os.SystemClock;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.annotation.RequiresPermission;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.disposables.Disposables;
+
+import static android.Manifest.permission.ACCESS_COARSE_LOCATION;
+import static android.Manifest.permission.ACCESS_FINE_LOCATION;
+import static android.Manifest.permission.ACCESS_WIFI_STATE;
+import static android.Manifest.permission.CHANGE_WIFI_STATE;
+
+/**
+ * WifiListeners subscribes plain listeners to the same shared BroadcastReceivers,
+ * which are used by ReactiveWifi Observables, without creating RxJava emitters.
+ * It's meant for bridges to other asynchronous APIs (e.g. Kotlin coroutines).
+ * Listeners are called on the thread delivering WiFi broadcasts
+ * (see {@link ReactiveWifi#setBackgroundDeliveryEnabled(boolean)}).
+ * Returned Disposable unsubscribes the listener.
+ */
+public final class WifiListeners {
+  private final static String LOG_TAG = "ReactiveWifi";
+  static final SignalQuantizer WIFI_SIGNAL_LEVEL_QUANTIZER =
+      SignalQuantizer.fromNumLevels(WifiSignalLevel.getMaxLevel());
+
+  private WifiListeners() {
+  }
+
+  /**
+   * Listens for WiFi scan results with default ScanScheduler shared by the whole library.
+   *
+   * @param context Context of the activity or an application
+   * @param listener getting WiFi scan results and their status
+   * @return Disposable unsubscribing the listener
+   */
+  @SuppressLint("MissingPermission") @RequiresPermission(allOf = {
+      ACCESS_COARSE_LOCATION, ACCESS_FINE_LOCATION, CHANGE_WIFI_STATE, ACCESS_WIFI_STATE
+  }) public static Disposable listenForWifiScanResults(final Context context,
+      final WifiListener<WifiScanResults> listener) {
+    return listenForWifiScanResults(context, ReactiveWifi.getScanScheduler(), listener);
+  }
+
+  /**
+   * Listens for WiFi scan results. Starts WiFi scan and gets list of Access Points together
+   * with information if they're fresh or throttled whenever new scan results are available.
+   * The same scan results are not delivered twice.
+   *
+   * @param context Context of the activity or an application
+   * @param scanScheduler responsible for starting WiFi scans
+   * @param listener getting WiFi scan results and their status
+   * @return Disposable unsubscribing the listener
+   */
+  @SuppressLint("MissingPermission") @RequiresPermission(allOf = {
+      ACCESS_COARSE_LOCATION, ACCESS_FINE_LOCATION, CHANGE_WIFI_STATE, ACCESS_WIFI_STATE
+  }) public static Disposable listenForWifiScanResults(final Context context,
+      final ScanScheduler scanScheduler, final WifiListener<WifiScanResults> listener) {
+    final WifiManager wifiManager = getWifiManager(context);
+    if (wifiManager == null) {
+      Log.w(LOG_TAG, "WifiManager was null, so WiFi scan was not started");
+      listener.onError(new RuntimeException(
+          "WifiManager was null, so BroadcastReceiver for Wifi scan results "
+              + "cannot be registered"));
+      return Disposables.disposed();
+    }
+
+    final String[] actions = {
+        WifiManager.RSSI_CHANGED_ACTION, WifiManager.SCAN_RESULTS_AVAILABLE_ACTION
+    };
+    final BroadcastReceiverHub hub = ReactiveWifi.getHub();
+    final ScanResultsReceiver receiver =
+        new ScanResultsReceiver(listener, wifiManager, scanScheduler, hub.getHandler());
+    hub.register(context, receiver, actions);
+    // without starting scan, we may never receive any scan results
+    receiver.start();
+
+    return Disposables.fromRunnable(new Runnable() {
+      @Override public void run() {
+        receiver.cancel();
+        hub.unregister(receiver, actions);
+      }
+    });
+  }
+
+  /**
+   * Listens for WiFi signal level with predefined max num levels.
+   * Gets WiFi signal level as enum whenever the level changes.
+   *
+   * @param context Context of the activity or an application
+   * @param emitCurrentValue true if the current level should be delivered right after subscription
+   * @param listener getting WifiSignalLevel
+   * @return Disposable unsubscribing the listener
+   */
+  @RequiresPermission(ACCESS_WIFI_STATE)
+  public static Disposable listenForWifiSignalLevel(final Context context,
+      final boolean emitCurrentValue, final WifiListener<WifiSignalLevel> listener) {
+    final WifiManager wifiManager = getWifiManager(context);
+    if (wifiManager == null) {
+      listener.onError(new RuntimeException(
+          "WifiManager is null, so BroadcastReceiver for Wifi signal level "
+              + "cannot be registered"));
+      return Disposables.disposed();
+    }
+    return listenForSignalLevel(context, wifiManager, emitCurrentValue,
+        createWifiSignalLevelReceiver(listener, wifiManager));
+  }
+
+  /**
+   * Listens for WiFi signal level.
+   * Gets WiFi signal level as an integer whenever the level changes.
+   *
+   * @param context Context of the activity or an application
+   * @param numLevels The number of levels to consider in the calculated level
+   * @param emitCurrentValue true if the current level should be delivered right after subscription
+   * @param listener getting WiFi signal level
+   * @return Disposable unsubscribing the listener
+   */
+  @RequiresPermission(ACCESS_WIFI_STATE)
+  public static Disposable listenForWifiSignalLevel(final Context context, final int numLevels,
+      final boolean emitCurrentValue, final WifiListener<Integer> listener) {
+    final WifiManager wifiManager = getWifiManager(context);
+    if (wifiManager == null) {
+      listener.onError(new RuntimeException(
+          "WifiManager is null, so BroadcastReceiver for Wifi signal level "
+              + "cannot be registered"));
+      return Disposables.disposed();
+    }
+    return listenForSignalLevel(context, wifiManager, emitCurrentValue,
+        createSignalLevelReceiver(listener, wifiManager, SignalQuantizer.fromNumLevels(numLevels)));
+  }
+
+  /**
+   * Listens for WiFi signal level quantized with custom thresholds and hysteresis.
+   * Gets WiFi signal level as an integer only when the level changes, so RSSI
+   * fluctuating around the threshold doesn't deliver the same levels back and forth.
+   *
+   * @param context Context of the activity or an application
+   * @param quantizer converting RSSI into signal level
+   * @param emitCurrentValue true if the current level should be delivered right after subscription
+   * @param listener getting WiFi signal level
+   * @return Disposable unsubscribing the listener
+   */
+  @RequiresPermission(ACCESS_WIFI_STATE)
+  public static Disposable listenForWifiSignalLevel(final Context context,
+      final SignalQuantizer quantizer, final boolean emitCurrentValue,
+      final WifiListener<Integer> listener) {
+    final WifiManager wifiManager = getWifiManager(context);
+    if (wifiManager == null) {
+      listener.onError(new RuntimeException(
+          "WifiManager is null, so BroadcastReceiver for Wifi signal level "
+              + "cannot be registered"));
+      return Disposables.disposed();
+    }
+    return listenForSignalLevel(context, wifiManager, emitCurrentValue,
+        createSignalLevelReceiver(listener, wifiManager, quantizer));
+  }
+
+  private static Disposable listenForSignalLevel(final Context context,
+      final WifiManager wifiManager, final boolean emitCurrentValue,
+      final BroadcastReceiver receiver) {
+    final String[] actions = { WifiManager.RSSI_CHANGED_ACTION };
+    final BroadcastReceiverHub hub = ReactiveWifi.getHub();
+    ReactiveWifi.getConnectionInfoCache().acquire(context, hub);
+    final boolean delivered = hub.register(context, receiver, emitCurrentValue, actions);
+    if (emitCurrentValue && !delivered) {
+      hub.seed(receiver, ReactiveWifi.createCurrentRssiIntent(wifiManager));
+    }
+    return unregisterAndReleaseOnDispose(hub, receiver, actions);
+  }
+
+  /**
+   * Listens for the current WPA supplicant state.
+   * Gets the current WPA supplicant state whenever it changes.
+   *
+   * @param context Context of the activity or an application
+   * @param listener getting SupplicantState
+   * @return Disposable unsubscribing the listener
+   */
+  @RequiresPermission(ACCESS_WIFI_STATE)
+  public static Disposable listenForSupplicantState(final Context context,
+      final WifiListener<SupplicantState> listener) {
+    final String[] actions = { WifiManager.SUPPLICANT_STATE_CHANGED_ACTION };
+    final BroadcastReceiverHub hub = ReactiveWifi.getHub();
+    final BroadcastReceiver receiver = createSupplicantStateReceiver(listener);
+    hub.register(context, receiver, actions);
+    return unregisterOnDispose(hub, receiver, actions);
+  }
+
+  /**
+   * Listens for the WiFi network the device is connected to.
+   * Gets WifiInfo whenever connection to the Access Point is completed.
+   *
+   * @param context Context of the activity or an application
+   * @param emitCurrentValue true if information about the network the device is currently
+   * connected to should be delivered right after subscription
+   * @param listener getting WifiInfo
+   * @return Disposable unsubscribing the listener
+   */
+  @RequiresPermission(ACCESS_WIFI_STATE)
+  public static Disposable listenForWifiAccessPointChanges(final Context context,
+      final boolean emitCurrentValue, final WifiListener<WifiInfo> listener) {
+    final WifiManager wifiManager = getWifiManager(context);
+    final String[] actions = { WifiManager.SUPPLICANT_STATE_CHANGED_ACTION };
+    final BroadcastReceiverHub hub = ReactiveWifi.getHub();
+    final BroadcastReceiver receiver = createAccessPointChangesReceiver(listener, wifiManager);
+    ReactiveWifi.getConnectionInfoCache().acquire(context, hub);
+    final boolean delivered = hub.register(context, receiver, emitCurrentValue, actions);
+    if (emitCurrentValue && !delivered && wifiManager != null) {
+      hub.seed(receiver, ReactiveWifi.createCurrentSupplicantStateIntent(wifiManager));
+    }
+    return unregisterAndReleaseOnDispose(hub, receiver, actions);
+  }
+
+  /**
+   * Listens for WiFi state changes.
+   * Gets WifiState whenever WiFi is enabled, disabled, enabling, disabling or unknown.
+   *
+   * @param context Context of the activity or an application
+   * @param emitCurrentValue true if the current state should be delivered right after subscription
+   * @param listener getting WifiState
+   * @return Disposable unsubscribing the listener
+   */
+  @RequiresPermission(ACCESS_WIFI_STATE)
+  public static Disposable listenForWifiStateChange(final Context context,
+      final boolean emitCurrentValue, final WifiListener<WifiState> listener) {
+    final WifiManager wifiManager = getWifiManager(context);
+    final String[] actions = { WifiManager.WIFI_STATE_CHANGED_ACTION };
+    final BroadcastReceiverHub hub = ReactiveWifi.getHub();
+    final BroadcastReceiver receiver = createWifiStateChangeReceiver(listener);
+    final boolean delivered = hub.register(context, receiver, emitCurrentValue, actions);
+    if (emitCurrentValue && !delivered && wifiManager != null) {
+      hub.seed(receiver, ReactiveWifi.createCurrentWifiStateIntent(wifiManager));
+    }
+    return unregisterOnDispose(hub, receiver, actions);
+  }
+
+  /**
+   * Listens for the risk of roaming or disconnection from the connected Access Point
+   * with default thresholds: roaming is likely below -70 dBm and disconnection below -85 dBm.
+   *
+   * @param context Context of the activity or an application
+   * @param listener getting RoamingRisk
+   * @return Disposable unsubscribing the listener
+   */
+  @SuppressLint("MissingPermission") @RequiresPermission(allOf = {
+      ACCESS_COARSE_LOCATION, ACCESS_FINE_LOCATION, CHANGE_WIFI_STATE, ACCESS_WIFI_STATE
+  }) public static Disposable listenForRoamingRisk(final Context context,
+      final WifiListener<RoamingRisk> listener) {
+    return listenForRoamingRisk(context, RoamingRiskPredictor.DEFAULT_ROAM_THRESHOLD,
+        RoamingRiskPredictor.DEFAULT_DISCONNECT_THRESHOLD, listener);
+  }
+
+  /**
+   * Listens for the risk of roaming or disconnection from the connected Access Point.
+   * RSSI trend of the connected Access Point is extrapolated a few seconds ahead and compared
+   * with thresholds and with the strongest other Access Point of the same network seen
+   * in recent scans. Gets RoamingRisk whenever the level, connected Access Point
+   * or roaming candidate changes. Scans are requested with default ScanScheduler.
+   *
+   * @param context Context of the activity or an application
+   * @param roamThreshold predicted RSSI in dBm below which roaming to a stronger Access Point
+   * is likely
+   * @param disconnectThreshold predicted RSSI in dBm below which disconnection is likely
+   * when there's no stronger Access Point
+   * @param listener getting RoamingRisk
+   * @return Disposable unsubscribing the listener
+   */
+  @SuppressLint("MissingPermission") @RequiresPermission(allOf = {
+      ACCESS_COARSE_LOCATION, ACCESS_FINE_LOCATION, CHANGE_WIFI_STATE, ACCESS_WIFI_STATE
+  }) public static Disposable listenForRoamingRisk(final Context context,
+      final int roamThreshold, final int disconnectThreshold,
+      final WifiListener<RoamingRisk> listener) {
+    final RoamingRiskPredictor predictor =
+        new RoamingRiskPredictor(roamThreshold, disconnectThreshold);
+    final WifiManager wifiManager = getWifiManager(context);
+    if (wifiManager == null) {
+      listener.onError(new RuntimeException(
+          "WifiManager is null, so BroadcastReceiver for roaming risk cannot be registered"));
+      return Disposables.disposed();
+    }
+
+    final String[] actions = {
+        WifiManager.SUPPLICANT_STATE_CHANGED_ACTION, WifiManager.RSSI_CHANGED_ACTION
+    };
+    final BroadcastReceiverHub hub = ReactiveWifi.getHub();
+    final RoamingRiskReceiver receiver = new RoamingRiskReceiver(listener, wifiManager, predictor);
+    ReactiveWifi.getConnectionInfoCache().acquire(context, hub);
+    hub.register(context, receiver, actions);
+    // state of the current connection is seeded, because broadcasts arrive only on changes
+    hub.seed(receiver, ReactiveWifi.createCurrentSupplicantStateIntent(wifiManager));
+    hub.seed(receiver, ReactiveWifi.createCurrentRssiIntent(wifiManager));
+    final Disposable scanResults =
+        listenForWifiScanResults(context, ReactiveWifi.getScanScheduler(), receiver);
+
+    return Disposables.fromRunnable(new Runnable() {
+      @Override public void run() {
+        scanResults.dispose();
+        hub.unregister(receiver, actions);
+        ReactiveWifi.getConnectionInfoCache().release();
+      }
+    });
+  }
+
+  /**
+   * Listens for connection attempts measured from WPA supplicant state transitions.
+   *
+   * @param context Context of the activity or an application
+   * @param listener getting ConnectionAttempt
+   * @return Disposable unsubscribing the listener
+   */
+  @RequiresPermission(ACCESS_WIFI_STATE)
+  public static Disposable listenForConnectionAttempts(final Context context,
+      final WifiListener<ConnectionAttempt> listener) {
+    return listenForConnectionAttempts(context, null, listener);
+  }
+
+  /**
+   * Listens for connection attempts measured from WPA supplicant state transitions.
+   * Gets ConnectionAttempt with time spent in each phase whenever the attempt is completed,
+   * failed or given up after looping through the same phases.
+   * Durations of completed attempts are recorded in ConnectionLatencies.
+   *
+   * @param context Context of the activity or an application
+   * @param latencies recording durations of completed attempts per Access Point or null
+   * @param listener getting ConnectionAttempt
+   * @return Disposable unsubscribing the listener
+   */
+  @RequiresPermission(ACCESS_WIFI_STATE)
+  public static Disposable listenForConnectionAttempts(final Context context,
+      final ConnectionLatencies latencies, final WifiListener<ConnectionAttempt> listener) {
+    final WifiManager wifiManager = getWifiManager(context);
+    if (wifiManager == null) {
+      listener.onError(new RuntimeException(
+          "WifiManager is null, so BroadcastReceiver for connection attempts "
+              + "cannot be registered"));
+      return Disposables.disposed();
+    }
+    final String[] actions = { WifiManager.SUPPLICANT_STATE_CHANGED_ACTION };
+    final BroadcastReceiverHub hub = ReactiveWifi.getHub();
+    final BroadcastReceiver receiver =
+        createConnectionAttemptsReceiver(listener, wifiManager, latencies, hub);
+    ReactiveWifi.getConnectionInfoCache().acquire(context, hub);
+    hub.register(context, receiver, actions);
+    return unregisterAndReleaseOnDispose(hub, receiver, actions);
+  }
+
+  /**
+   * Listens for WiFi snapshots with default ScanScheduler shared by the whole library.
+   *
+   * @param context Context of the activity or an application
+   * @param listener getting WifiSnapshot
+   * @return Disposable unsubscribing the listener
+   */
+  @SuppressLint("MissingPermission") @RequiresPermission(allOf = {
+      ACCESS_COARSE_LOCATION, ACCESS_FINE_LOCATION, CHANGE_WIFI_STATE, ACCESS_WIFI_STATE
+  }) public static Disposable listenForWifi(final Context context,
+      final WifiListener<WifiSnapshot> listener) {
+    return listenForWifi(context, ReactiveWifi.getScanScheduler(), listener);
+  }
+
+  /**
+   * Listens for WiFi state, WPA supplicant state, signal, connected Access Point
+   * and scan results with a single BroadcastReceiver. Gets WifiSnapshot with bitmask
+   * of changed parts whenever any of them changes. The first snapshot is delivered
+   * right after subscription and has all parts marked as changed.
+   *
+   * @param context Context of the activity or an application
+   * @param scanScheduler responsible for starting WiFi scans
+   * @param listener getting WifiSnapshot
+   * @return Disposable unsubscribing the listener
+   */
+  @SuppressLint("MissingPermission") @RequiresPermission(allOf = {
+      ACCESS_COARSE_LOCATION, ACCESS_FINE_LOCATION, CHANGE_WIFI_STATE, ACCESS_WIFI_STATE
+  }) public static Disposable listenForWifi(final Context context,
+      final ScanScheduler scanScheduler, final WifiListener<WifiSnapshot> listener) {
+    final WifiManager wifiManager = getWifiManager(context);
+    if (wifiManager == null) {
+      listener.onError(new RuntimeException(
+          "WifiManager is null, so BroadcastReceiver for WiFi snapshots cannot be registered"));
+      return Disposables.disposed();
+    }
+
+    final String[] actions = WifiSnapshotReceiver.ACTIONS;
+    final BroadcastReceiverHub hub = ReactiveWifi.getHub();
+    final WifiSnapshotReceiver receiver =
+        new WifiSnapshotReceiver(listener, wifiManager, scanScheduler, hub.getHandler());
+    ReactiveWifi.getConnectionInfoCache().acquire(context, hub);
+    hub.register(context, receiver, actions);
+    hub.seed(receiver, ReactiveWifi.createCurrentWifiStateIntent(wifiManager));
+    // without starting scan, we may never receive any scan results
+    receiver.start();
+
+    return Disposables.fromRunnable(new Runnable() {
+      @Override public void run() {
+        receiver.cancel();
+        hub.unregister(receiver, actions);
+        ReactiveWifi.getConnectionInfoCache().release();
+      }
+    });
+  }
+
+  @NonNull static BroadcastReceiver createWifiSignalLevelReceiver(
+      final WifiListener<WifiSignalLevel> listener, final WifiManager wifiManager) {
+    return new SignalLevelReceiver(wifiManager, WIFI_SIGNAL_LEVEL_QUANTIZER) {
+      @Override void onSignalLevelChanged(int level) {
+        ReactiveWifi.getMetrics().onEmission(WifiManager.RSSI_CHANGED_ACTION);
+        listener.onNext(WifiSignalLevel.fromLevel(level));
+      }
+    };
+  }
+
+  @NonNull static BroadcastReceiver createSignalLevelReceiver(
+      final WifiListener<Integer> listener, final WifiManager wifiManager,
+      final SignalQuantizer quantizer) {
+    return new SignalLevelReceiver(wifiManager, quantizer) {
+      @Override void onSignalLevelChanged(int level) {
+        ReactiveWifi.getMetrics().onEmission(WifiManager.RSSI_CHANGED_ACTION);
+        listener.onNext(level);
+      }
+    };
+  }
+
+  @NonNull static BroadcastReceiver createSupplicantStateReceiver(
+      final WifiListener<SupplicantState> listener) {
+    return new BroadcastReceiver() {
+      @Override public void onReceive(Context context, Intent intent) {
+        SupplicantState supplicantState =
+            intent.getParcelableExtra(WifiManager.EXTRA_NEW_STATE);
+
+        if ((supplicantState != null) && SupplicantState.isValidState(supplicantState)) {
+          ReactiveWifi.getMetrics().onEmission(WifiManager.SUPPLICANT_STATE_CHANGED_ACTION);
+          listener.onNext(supplicantState);
+        }
+      }
+    };
+  }
+
+  @NonNull static BroadcastReceiver createAccessPointChangesReceiver(
+      final WifiListener<WifiInfo> listener, final WifiManager wifiManager) {
+    return new BroadcastReceiver() {
+      @Override public void onReceive(Context context, Intent intent) {
+        SupplicantState supplicantState =
+            intent.getParcelableExtra(WifiManager.EXTRA_NEW_STATE);
+        if (supplicantState == SupplicantState.COMPLETED) {
+          ReactiveWifi.getMetrics().onEmission(WifiManager.SUPPLICANT_STATE_CHANGED_ACTION);
+          listener.onNext(ReactiveWifi.getConnectionInfo(wifiManager));
+        }
+      }
+    };
+  }
+
+  @NonNull static BroadcastReceiver createWifiStateChangeReceiver(
+      final WifiListener<WifiState> listener) {
+    return new BroadcastReceiver() {
+      @Override public void onReceive(Context context, Intent intent) {
+        //we receive whenever the wifi state is change
+        int wifiState =
+            intent.getIntExtra(WifiManager.EXTRA_WIFI_STATE, WifiManager.WIFI_STATE_UNKNOWN);
+        ReactiveWifi.getMetrics().onEmission(WifiManager.WIFI_STATE_CHANGED_ACTION);
+        listener.onNext(WifiState.fromState(wifiState));
+      }
+    };
+  }
+
+  @NonNull static BroadcastReceiver createConnectionAttemptsReceiver(
+      final WifiListener<ConnectionAttempt> listener, final WifiManager wifiManager,
+      final ConnectionLatencies latencies, final BroadcastReceiverHub hub) {
+    return new BroadcastReceiver() {
+      private final ConnectionAttemptTracker tracker =
+          new ConnectionAttemptTracker(ConnectionAttemptTracker.DEFAULT_MAX_LOOPS);
+
+      @Override public void onReceive(Context context, Intent intent) {
+        // sticky or replayed state was entered at unknown time, so it can't start an attempt
+        if (isInitialStickyBroadcast() || hub.isReplaying()) {
+          return;
+        }
+
+        final long timestamp = SystemClock.elapsedRealtimeNanos();
+        final SupplicantState supplicantState =
+            intent.getParcelableExtra(WifiManager.EXTRA_NEW_STATE);
+        if (supplicantState == null) {
+          return;
+        }
+
+        final int supplicantError =
+            intent.getIntExtra(WifiManager.EXTRA_SUPPLICANT_ERROR, ConnectionAttempt.NO_ERROR);
+        final String bssid = supplicantState == SupplicantState.COMPLETED
+            ? ReactiveWifi.getConnectionInfo(wifiManager).getBSSID() : null;
+        final ConnectionAttempt attempt =
+            tracker.onStateChanged(timestamp, supplicantState, supplicantError, bssid);
+
+        if (attempt != null) {
+          if (latencies != null) {
+            latencies.record(attempt);
+          }
+          ReactiveWifi.getMetrics().onEmission(WifiManager.SUPPLICANT_STATE_CHANGED_ACTION);
+          listener.onNext(attempt);
+        }
+      }
+    };
+  }
+
+  @SuppressLint("WifiManagerPotentialLeak")
+  private static WifiManager getWifiManager(final Context context) {
+    return (WifiManager) context.getSystemService(Context.WIFI_SERVICE);
+  }
+
+  private static Disposable unregisterOnDispose(final BroadcastReceiverHub hub,
+      final BroadcastReceiver receiver, final String... actions) {
+    return Disposables.fromRunnable(new Runnable() {
+      @Override public void run() {
+        hub.unregister(receiver, actions);
+      }
+    });
+  }
+
+  private static Disposable unregisterAndReleaseOnDispose(final BroadcastReceiverHub hub,
+      final BroadcastReceiver receiver, final String... actions) {
+    return Disposables.fromRunnable(new Runnable() {
+      @Override public void run() {
+        hub.unregister(receiver, actions);
+        ReactiveWifi.getConnectionInfoCache().release();
+      }
+    });
+  }
+}
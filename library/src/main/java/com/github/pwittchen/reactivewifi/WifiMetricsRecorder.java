@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivewifi;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * WifiMetricsRecorder keeps counters and latency histograms of the library's work,
+ * which can be periodically exported to telemetry.
+ */
+public class WifiMetricsRecorder extends ReactiveWifiMetrics {
+  private final ConcurrentMap<String, AtomicLong> broadcasts = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, AtomicLong> emissions = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, AtomicLong> duplicates = new ConcurrentHashMap<>();
+  private final AtomicLong acceptedScans = new AtomicLong();
+  private final AtomicLong refusedScans = new AtomicLong();
+  private final LatencyHistogram scanResultsLatency = new LatencyHistogram();
+  private final LatencyHistogram connectionInfoLatency = new LatencyHistogram();
+  private final LatencyHistogram unregisterLatency = new LatencyHistogram();
+
+  @Override public void onBroadcastReceived(final String action) {
+    increment(broadcasts, action);
+  }
+
+  @Override public void onEmission(final String action) {
+    increment(emissions, action);
+  }
+
+  @Override public void onDuplicateSkipped(final String action) {
+    increment(duplicates, action);
+  }
+
+  @Override public void onScanRequested(final boolean accepted) {
+    (accepted ? acceptedScans : refusedScans).incrementAndGet();
+  }
+
+  @Override public void onWifiManagerCall(final String method, final long durationNanos) {
+    if (GET_SCAN_RESULTS.equals(method)) {
+      scanResultsLatency.record(durationNanos);
+    } else if (GET_CONNECTION_INFO.equals(method)) {
+      connectionInfoLatency.record(durationNanos);
+    }
+  }
+
+  @Override public void onUnregistered(final long durationNanos) {
+    unregisterLatency.record(durationNanos);
+  }
+
+  /**
+   * Returns number of received broadcasts
+   *
+   * @param action of the broadcasts
+   * @return number of broadcasts
+   */
+  public long getBroadcasts(final String action) {
+    return get(broadcasts, action);
+  }
+
+  /**
+   * Returns number of emissions caused by broadcasts
+   *
+   * @param action of the broadcasts
+   * @return number of emissions
+   */
+  public long getEmissions(final String action) {
+    return get(emissions, action);
+  }
+
+  /**
+   * Returns number of broadcasts skipped, because they carried already emitted value
+   *
+   * @param action of the broadcasts
+   * @return number of skipped broadcasts
+   */
+  public long getDuplicates(final String action) {
+    return get(duplicates, action);
+  }
+
+  /**
+   * Returns number of started WiFi scans
+   *
+   * @return number of scans
+   */
+  public long getAcceptedScans() {
+    return acceptedScans.get();
+  }
+
+  /**
+   * Returns number of WiFi scan requests refused by ScanScheduler or the system
+   *
+   * @return number of refused scan requests
+   */
+  public long getRefusedScans() {
+    return refusedScans.get();
+  }
+
+  /**
+   * Returns histogram of WifiManager.getScanResults() durations
+   *
+   * @return latency histogram
+   */
+  public LatencyHistogram getScanResultsLatency() {
+    return scanResultsLatency;
+  }
+
+  /**
+   * Returns histogram of WifiManager.getConnectionInfo() durations
+   *
+   * @return latency histogram
+   */
+  public LatencyHistogram getConnectionInfoLatency() {
+    return connectionInfoLatency;
+  }
+
+  /**
+   * Returns histogram of durations from disposal to unregistration of receivers
+   *
+   * @return latency histogram
+   */
+  public LatencyHistogram getUnregisterLatency() {
+    return unregisterLatency;
+  }
+
+  private static void increment(final ConcurrentMap<String, AtomicLong> counters,
+      final String action) {
+    AtomicLong counter = counters.get(action);
+    if (counter == null) {
+      final AtomicLong newCounter = new AtomicLong();
+      counter = counters.putIfAbsent(action, newCounter);
+      if (counter == null) {
+        counter = newCounter;
+      }
+    }
+    counter.incrementAndGet();
+  }
+
+  private static long get(final ConcurrentMap<String, AtomicLong> counters, final String action) {
+    final AtomicLong counter = counters.get(action);
+    return counter != null ? counter.get() : 0;
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivewifi;
+
+import android.net.wifi.ScanResult;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * WifiScanIndex is an immutable view of a single WiFi scan with Access Points indexed
+ * by BSSID, SSID, band and channel, so each lookup takes constant time.
+ * It also contains the strongest Access Points sorted by RSSI, which are maintained
+ * incrementally between consecutive scans. Returned lists must not be modified.
+ */
+public final class WifiScanIndex {
+  public final ScanStatus status;
+  private final List<ScanResult> scanResults;
+  private final Map<String, ScanResult> byBssid;
+  private final Map<String, List<ScanResult>> bySsid;
+  private final List<List<ScanResult>> byBand;
+  private final Map<Integer, List<ScanResult>> byChannel;
+  private final List<ScanResult> strongest;
+
+  WifiScanIndex(final ScanStatus status, final List<ScanResult> scanResults,
+      final Map<String, ScanResult> byBssid, final Map<String, List<ScanResult>> bySsid,
+      final List<List<ScanResult>> byBand, final Map<Integer, List<ScanResult>> byChannel,
+      final List<ScanResult> strongest) {
+    this.status = status;
+    this.scanResults = scanResults;
+    this.byBssid = byBssid;
+    this.bySsid = bySsid;
+    this.byBand = byBand;
+    this.byChannel = byChannel;
+    this.strongest = strongest;
+  }
+
+  /**
+   * Returns all scan results
+   *
+   * @return list of scan results in the order returned by WifiManager
+   */
+  public List<ScanResult> getScanResults() {
+    return scanResults;
+  }
+
+  /**
+   * Returns number of Access Points in the scan
+   *
+   * @return number of Access Points
+   */
+  public int size() {
+    return scanResults.size();
+  }
+
+  /**
+   * Finds Access Point by its BSSID
+   *
+   * @param bssid in format xx:xx:xx:xx:xx:xx
+   * @return scan result of the Access Point or null if it's not in the scan
+   */
+  public ScanResult getByBssid(final String bssid) {
+    return byBssid.get(bssid);
+  }
+
+  /**
+   * Finds Access Points with given SSID
+   *
+   * @param ssid name of the network
+   * @return list of scan results, which is empty if there's no such network in the scan
+   */
+  public List<ScanResult> getBySsid(final String ssid) {
+    return orEmpty(bySsid.get(ssid));
+  }
+
+  /**
+   * Finds Access Points in given band
+   *
+   * @param band of the Access Points
+   * @return list of scan results, which is empty if there's no Access Point in the band
+   */
+  public List<ScanResult> getByBand(final WifiBand band) {
+    return byBand.get(band.ordinal());
+  }
+
+  /**
+   * Finds Access Points on given channel
+   *
+   * @param band of the channel, because channel numbers are unique only within a band
+   * @param channel number of the channel
+   * @return list of scan results, which is empty if there's no Access Point on the channel
+   */
+  public List<ScanResult> getByChannel(final WifiBand band, final int channel) {
+    return orEmpty(byChannel.get(channelKey(band, channel)));
+  }
+
+  /**
+   * Returns the strongest Access Points sorted by RSSI in descending order.
+   * Number of Access Points is limited by topK value passed while observing the index.
+   *
+   * @return list of the strongest scan results
+   */
+  public List<ScanResult> getStrongest() {
+    return strongest;
+  }
+
+  static int channelKey(final WifiBand band, final int channel) {
+    return (band.ordinal() << 16) | (channel & 0xffff);
+  }
+
+  private static List<ScanResult> orEmpty(final List<ScanResult> scanResults) {
+    return scanResults != null ? scanResults : Collections.<ScanResult>emptyList();
+  }
+
+  @Override public String toString() {
+    return "WifiScanIndex{" + "size=" + size() + ", status=" + status + '}';
+  }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivewifi;
+
+import android.net.wifi.ScanResult;
+import io.reactivex.functions.Function;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * WifiScanIndexer builds WifiScanIndex of each WiFi scan in a single pass over scan results.
+ * Access Points with duplicated BSSIDs are indexed once. The strongest Access Points
+ * are not sorted from scratch. The previous top-K is updated with the current RSSI
+ * and insertion sorted (it's nearly sorted, when RSSI changes a bit between scans),
+ * and then other Access Points replace the weakest ones only when they're stronger,
+ * so a stable scan takes one comparison per Access Point.
+ * It keeps the previous scan, so a new instance has to be used for each subscription.
+ */
+final class WifiScanIndexer implements Function<WifiScanResults, WifiScanIndex> {
+  private static final WifiBand[] BANDS = WifiBand.values();
+  private final int topK;
+  private final List<ScanResult> uniqueResults = new ArrayList<>();
+  private final List<ScanResult> strongest = new ArrayList<>();
+  private final Set<String> strongestBssids = new HashSet<>();
+  private List<ScanResult> previousStrongest = Collections.emptyList();
+
+  WifiScanIndexer(final int topK) {
+    if (topK <= 0) {
+      throw new IllegalArgumentException("topK has to be greater than zero");
+    }
+    this.topK = topK;
+  }
+
+  @Override public WifiScanIndex apply(final WifiScanResults wifiScanResults) {
+    return index(wifiScanResults.scanResults, wifiScanResults.status);
+  }
+
+  WifiScanIndex index(final List<ScanResult> scanResults, final ScanStatus status) {
+    final Map<String, ScanResult> byBssid = new HashMap<>(scanResults.size() * 2);
+    final Map<String, List<ScanResult>> bySsid = new HashMap<>();
+    final Map<Integer, List<ScanResult>> byChannel = new HashMap<>();
+    final List<List<ScanResult>> byBand = new ArrayList<>(BANDS.length);
+    for (int i = 0; i < BANDS.length; i++) {
+      byBand.add(new ArrayList<ScanResult>());
+    }
+
+    uniqueResults.clear();
+    for (int i = 0, size = scanResults.size(); i < size; i++) {
+      final ScanResult scanResult = scanResults.get(i);
+      if (scanResult.BSSID != null) {
+        if (byBssid.containsKey(scanResult.BSSID)) {
+          continue;
+        }
+        byBssid.put(scanResult.BSSID, scanResult);
+      }
+      uniqueResults.add(scanResult);
+
+      final WifiBand band = WifiBand.fromFrequency(scanResult.frequency);
+      byBand.get(band.ordinal()).add(scanResult);
+      if (scanResult.SSID != null) {
+        bucket(bySsid, scanResult.SSID).add(scanResult);
+      }
+      if (band != WifiBand.UNKNOWN) {
+        final int channel = WifiBand.getChannel(scanResult.frequency);
+        bucket(byChannel, WifiScanIndex.channelKey(band, channel)).add(scanResult);
+      }
+    }
+
+    updateStrongest(byBssid);
+    uniqueResults.clear();
+    return new WifiScanIndex(status, scanResults, byBssid, bySsid, byBand, byChannel,
+        previousStrongest);
+  }
+
+  private void updateStrongest(final Map<String, ScanResult> byBssid) {
+    strongest.clear();
+    for (ScanResult previous : previousStrongest) {
+      final ScanResult current = previous.BSSID != null ? byBssid.get(previous.BSSID) : null;
+      if (current != null) {
+        strongest.add(current);
+      }
+    }
+    insertionSort(strongest);
+
+    for (ScanResult scanResult : uniqueResults) {
+      if (scanResult.BSSID == null || !strongestBssids.contains(scanResult.BSSID)) {
+        offer(scanResult);
+      }
+    }
+
+    strongestBssids.clear();
+    for (ScanResult scanResult : strongest) {
+      if (scanResult.BSSID != null) {
+        strongestBssids.add(scanResult.BSSID);
+      }
+    }
+    previousStrongest = Collections.unmodifiableList(new ArrayList<>(strongest));
+  }
+
+  private void offer(final ScanResult scanResult) {
+    final int size = strongest.size();
+    if (size == topK && scanResult.level <= strongest.get(size - 1).level) {
+      return;
+    }
+
+    int index = size;
+    while (index > 0 && strongest.get(index - 1).level < scanResult.level) {
+      index--;
+    }
+    if (size == topK) {
+      strongest.remove(size - 1);
+    }
+    strongest.add(index, scanResult);
+  }
+
+  private static void insertionSort(final List<ScanResult> scanResults) {
+    for (int i = 1, size = scanResults.size(); i < size; i++) {
+      final ScanResult scanResult = scanResults.get(i);
+      int j = i;
+      while (j > 0 && scanResults.get(j - 1).level < scanResult.level) {
+        scanResults.set(j, scanResults.get(j - 1));
+        j--;
+      }
+      scanResults.set(j, scanResult);
+    }
+  }
+
+  private static <K> List<ScanResult> bucket(final Map<K, List<ScanResult>> buckets,
+      final K key) {
+    List<ScanResult> bucket = buckets.get(key);
+    if (bucket == null) {
+      bucket = new ArrayList<>(2);
+      buckets.put(key, bucket);
+    }
+    return bucket;
+  }
+}
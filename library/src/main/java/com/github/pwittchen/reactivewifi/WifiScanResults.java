@@ -0,0 +1,37 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivewifi;
+
+import android.net.wifi.ScanResult;
+import java.util.List;
+
+/**
+ * WifiScanResults contains list of WiFi scan results together with their status,
+ * which tells if results are fresh or throttled
+ */
+public class WifiScanResults {
+  public final List<ScanResult> scanResults;
+  public final ScanStatus status;
+
+  public WifiScanResults(final List<ScanResult> scanResults, final ScanStatus status) {
+    this.scanResults = scanResults;
+    this.status = status;
+  }
+
+  @Override public String toString() {
+    return "WifiScanResults{" + "scanResults=" + scanResults + ", status=" + status + '}';
+  }
+}
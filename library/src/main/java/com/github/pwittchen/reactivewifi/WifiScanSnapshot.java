@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivewifi;
+
+/**
+ * WifiScanSnapshot is a compact and immutable representation of WiFi scan results.
+ * It keeps only BSSID, SSID, RSSI, frequency and timestamp of each Access Point
+ * in parallel arrays of primitives (BSSIDs are packed into longs). Columns, which
+ * haven't changed since the previous scan, are shared between consecutive snapshots.
+ */
+public final class WifiScanSnapshot {
+  public static final long INVALID_BSSID = -1L;
+  private static final int BSSID_LENGTH = 17;
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+  public final ScanStatus status;
+  final long[] bssids;
+  final String[] ssids;
+  final int[] rssis;
+  final int[] frequencies;
+  final long[] timestamps;
+
+  WifiScanSnapshot(final ScanStatus status, final long[] bssids, final String[] ssids,
+      final int[] rssis, final int[] frequencies, final long[] timestamps) {
+    this.status = status;
+    this.bssids = bssids;
+    this.ssids = ssids;
+    this.rssis = rssis;
+    this.frequencies = frequencies;
+    this.timestamps = timestamps;
+  }
+
+  /**
+   * Returns number of Access Points in the snapshot
+   *
+   * @return number of Access Points
+   */
+  public int size() {
+    return bssids.length;
+  }
+
+  /**
+   * Returns BSSID of the Access Point
+   *
+   * @param index of the Access Point
+   * @return BSSID packed into long or INVALID_BSSID if BSSID was not available
+   */
+  public long getBssid(final int index) {
+    return bssids[index];
+  }
+
+  /**
+   * Returns SSID of the Access Point
+   *
+   * @param index of the Access Point
+   * @return SSID of the Access Point
+   */
+  public String getSsid(final int index) {
+    return ssids[index];
+  }
+
+  /**
+   * Returns RSSI of the Access Point
+   *
+   * @param index of the Access Point
+   * @return RSSI of the Access Point in dBm
+   */
+  public int getRssi(final int index) {
+    return rssis[index];
+  }
+
+  /**
+   * Returns frequency of the Access Point
+   *
+   * @param index of the Access Point
+   * @return frequency of the Access Point in MHz
+   */
+  public int getFrequency(final int index) {
+    return frequencies[index];
+  }
+
+  /**
+   * Returns timestamp, when the Access Point was last seen
+   *
+   * @param index of the Access Point
+   * @return timestamp in microseconds (since boot), when the Access Point was last seen
+   */
+  public long getTimestamp(final int index) {
+    return timestamps[index];
+  }
+
+  /**
+   * Packs BSSID in format xx:xx:xx:xx:xx:xx into long
+   *
+   * @param bssid as a String
+   * @return BSSID packed into long or INVALID_BSSID if BSSID has invalid format
+   */
+  public static long packBssid(final String bssid) {
+    if (bssid == null || bssid.length() != BSSID_LENGTH) {
+      return INVALID_BSSID;
+    }
+
+    long packed = 0;
+    for (int i = 0; i < BSSID_LENGTH; i++) {
+      final char character = bssid.charAt(i);
+      if (i % 3 == 2) {
+        if (character != ':') {
+          return INVALID_BSSID;
+        }
+        continue;
+      }
+      final int digit = Character.digit(character, 16);
+      if (digit < 0) {
+        return INVALID_BSSID;
+      }
+      packed = (packed << 4) | digit;
+    }
+    return packed;
+  }
+
+  /**
+   * Unpacks BSSID packed with packBssid(String) method
+   *
+   * @param bssid packed into long
+   * @return BSSID in format xx:xx:xx:xx:xx:xx or null if BSSID is invalid
+   */
+  public static String unpackBssid(final long bssid) {
+    if (bssid == INVALID_BSSID) {
+      return null;
+    }
+
+    final char[] characters = new char[BSSID_LENGTH];
+    for (int i = BSSID_LENGTH - 1, shift = 0; i >= 0; i--) {
+      if (i % 3 == 2) {
+        characters[i] = ':';
+        continue;
+      }
+      characters[i] = HEX_DIGITS[(int) (bssid >>> shift) & 0xf];
+      shift += 4;
+    }
+    return new String(characters);
+  }
+
+  @Override public String toString() {
+    return "WifiScanSnapshot{" + "size=" + size() + ", status=" + status + '}';
+  }
+}
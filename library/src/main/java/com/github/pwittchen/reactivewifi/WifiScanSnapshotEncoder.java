@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivewifi;
+
+import android.net.wifi.ScanResult;
+import io.reactivex.functions.Function;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * WifiScanSnapshotEncoder converts WiFi scan results into compact WifiScanSnapshots.
+ * Scan results are written into buffers reused between scans. Columns equal to the columns
+ * of the previous snapshot are shared with it and only changed columns are copied
+ * into new arrays. SSIDs are interned, so the same SSID is kept in memory once.
+ * It keeps the previous snapshot, so a new instance has to be used for each subscription.
+ */
+final class WifiScanSnapshotEncoder implements Function<WifiScanResults, WifiScanSnapshot> {
+  private static final int MAX_INTERNED_SSIDS = 1024;
+  private final Map<String, String> internedSsids = new HashMap<>();
+  private long[] bssidsBuffer = new long[0];
+  private String[] ssidsBuffer = new String[0];
+  private int[] rssisBuffer = new int[0];
+  private int[] frequenciesBuffer = new int[0];
+  private long[] timestampsBuffer = new long[0];
+  private WifiScanSnapshot previous;
+
+  @Override public WifiScanSnapshot apply(final WifiScanResults wifiScanResults) {
+    return encode(wifiScanResults.scanResults, wifiScanResults.status);
+  }
+
+  WifiScanSnapshot encode(final List<ScanResult> scanResults, final ScanStatus status) {
+    final int size = scanResults.size();
+    ensureCapacity(size);
+
+    for (int i = 0; i < size; i++) {
+      final ScanResult scanResult = scanResults.get(i);
+      bssidsBuffer[i] = WifiScanSnapshot.packBssid(scanResult.BSSID);
+      ssidsBuffer[i] = intern(scanResult.SSID);
+      rssisBuffer[i] = scanResult.level;
+      frequenciesBuffer[i] = scanResult.frequency;
+      timestampsBuffer[i] = scanResult.timestamp;
+    }
+
+    final boolean sameSize = previous != null && previous.size() == size;
+    final long[] bssids = sameSize && equals(bssidsBuffer, previous.bssids)
+        ? previous.bssids : Arrays.copyOf(bssidsBuffer, size);
+    final String[] ssids = sameSize && equals(ssidsBuffer, previous.ssids)
+        ? previous.ssids : Arrays.copyOf(ssidsBuffer, size);
+    final int[] rssis = sameSize && equals(rssisBuffer, previous.rssis)
+        ? previous.rssis : Arrays.copyOf(rssisBuffer, size);
+    final int[] frequencies = sameSize && equals(frequenciesBuffer, previous.frequencies)
+        ? previous.frequencies : Arrays.copyOf(frequenciesBuffer, size);
+    final long[] timestamps = sameSize && equals(timestampsBuffer, previous.timestamps)
+        ? previous.timestamps : Arrays.copyOf(timestampsBuffer, size);
+
+    Arrays.fill(ssidsBuffer, 0, size, null);
+    previous = new WifiScanSnapshot(status, bssids, ssids, rssis, frequencies, timestamps);
+    return previous;
+  }
+
+  private void ensureCapacity(final int size) {
+    if (bssidsBuffer.length >= size) {
+      return;
+    }
+    final int capacity = Math.max(size, bssidsBuffer.length * 2);
+    bssidsBuffer = new long[capacity];
+    ssidsBuffer = new String[capacity];
+    rssisBuffer = new int[capacity];
+    frequenciesBuffer = new int[capacity];
+    timestampsBuffer = new long[capacity];
+  }
+
+  private static boolean equals(final long[] buffer, final long[] column) {
+    for (int i = 0; i < column.length; i++) {
+      if (buffer[i] != column[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean equals(final int[] buffer, final int[] column) {
+    for (int i = 0; i < column.length; i++) {
+      if (buffer[i] != column[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean equals(final String[] buffer, final String[] column) {
+    for (int i = 0; i < column.length; i++) {
+      // SSIDs are interned, so equals(...) usually returns on the reference check
+      if (buffer[i] == null ? column[i] != null : !buffer[i].equals(column[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private String intern(final String ssid) {
+    if (ssid == null) {
+      return null;
+    }
+
+    final String interned = internedSsids.get(ssid);
+    if (interned != null) {
+      return interned;
+    }
+
+    if (internedSsids.size() >= MAX_INTERNED_SSIDS) {
+      internedSsids.clear();
+    }
+    internedSsids.put(ssid, ssid);
+    return ssid;
+  }
+}
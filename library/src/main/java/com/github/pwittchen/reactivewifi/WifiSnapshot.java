@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivewifi;
+
+import android.net.wifi.SupplicantState;
+import android.net.wifi.WifiInfo;
+
+/**
+ * WifiSnapshot is an immutable view of WiFi state, WPA supplicant state, signal,
+ * connected Access Point and scan results at the moment of a single broadcast.
+ * Bitmask of parts, which have changed since the previous snapshot, allows to react
+ * only to relevant changes without combining separate streams.
+ */
+public final class WifiSnapshot {
+  public static final int WIFI_STATE = 1;
+  public static final int SUPPLICANT_STATE = 1 << 1;
+  public static final int RSSI = 1 << 2;
+  public static final int SIGNAL_LEVEL = 1 << 3;
+  public static final int ACCESS_POINT = 1 << 4;
+  public static final int SCAN_RESULTS = 1 << 5;
+  public static final int ALL =
+      WIFI_STATE | SUPPLICANT_STATE | RSSI | SIGNAL_LEVEL | ACCESS_POINT | SCAN_RESULTS;
+
+  public final WifiState wifiState;
+  public final SupplicantState supplicantState;
+  public final int rssi;
+  public final WifiSignalLevel signalLevel;
+  public final WifiInfo wifiInfo;
+  public final WifiScanResults scanResults;
+  public final int changed;
+  public final long timestamp;
+
+  /**
+   * Creates WiFi snapshot
+   *
+   * @param wifiState state of WiFi
+   * @param supplicantState state of WPA supplicant
+   * @param rssi of the connected Access Point in dBm
+   * @param signalLevel of the connected Access Point
+   * @param wifiInfo of the connected Access Point or null if the device is not connected
+   * @param scanResults the latest WiFi scan results or null if nothing was scanned yet
+   * @param changed bitmask of parts, which have changed since the previous snapshot
+   * @param timestamp of the snapshot in milliseconds since boot
+   */
+  public WifiSnapshot(final WifiState wifiState, final SupplicantState supplicantState,
+      final int rssi, final WifiSignalLevel signalLevel, final WifiInfo wifiInfo,
+      final WifiScanResults scanResults, final int changed, final long timestamp) {
+    this.wifiState = wifiState;
+    this.supplicantState = supplicantState;
+    this.rssi = rssi;
+    this.signalLevel = signalLevel;
+    this.wifiInfo = wifiInfo;
+    this.scanResults = scanResults;
+    this.changed = changed;
+    this.timestamp = timestamp;
+  }
+
+  /**
+   * Checks if any of the parts has changed since the previous snapshot
+   *
+   * @param parts bitmask of parts, e.g. WifiSnapshot.RSSI | WifiSnapshot.SCAN_RESULTS
+   * @return true if at least one of the parts has changed
+   */
+  public boolean hasChanged(final int parts) {
+    return (changed & parts) != 0;
+  }
+
+  @Override public String toString() {
+    return "WifiSnapshot{" + "wifiState=" + wifiState + ", supplicantState=" + supplicantState
+        + ", rssi=" + rssi + ", signalLevel=" + signalLevel + ", wifiInfo=" + wifiInfo
+        + ", scanResults=" + scanResults + ", changed=" + changed + ", timestamp=" + timestamp
+        + '}';
+  }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivewifi;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.net.wifi.SupplicantState;
+import android.net.wifi.WifiInfo;
+import android.net.wifi.WifiManager;
+import android.os.Handler;
+import android.os.SystemClock;
+
+/**
+ * WifiSnapshotReceiver handles WiFi state, WPA supplicant state, RSSI and scan results
+ * broadcasts with a single receiver and passes WifiSnapshot further whenever any part
+ * has changed. Scan results are read by ScanResultsReceiver, which isn't registered
+ * in BroadcastReceiverHub, but gets RSSI and scan results broadcasts from this receiver,
+ * so scans are requested, coalesced and deduplicated in the same way as in other streams.
+ * Parts missing in the first snapshot are read from WifiManager.
+ */
+final class WifiSnapshotReceiver extends BroadcastReceiver
+    implements WifiListener<WifiScanResults> {
+  static final String[] ACTIONS = {
+      WifiManager.WIFI_STATE_CHANGED_ACTION, WifiManager.SUPPLICANT_STATE_CHANGED_ACTION,
+      WifiManager.RSSI_CHANGED_ACTION, WifiManager.SCAN_RESULTS_AVAILABLE_ACTION
+  };
+  private final WifiListener<WifiSnapshot> listener;
+  private final WifiManager wifiManager;
+  private final ScanResultsReceiver scanResultsReceiver;
+  private WifiState wifiState;
+  private SupplicantState supplicantState;
+  private int rssi = SignalLevelReceiver.UNKNOWN;
+  private WifiSignalLevel signalLevel;
+  private WifiInfo wifiInfo;
+  private WifiScanResults scanResults;
+  private boolean emitted;
+  private int changed;
+
+  WifiSnapshotReceiver(final WifiListener<WifiSnapshot> listener, final WifiManager wifiManager,
+      final ScanScheduler scanScheduler, final Handler handler) {
+    this.listener = listener;
+    this.wifiManager = wifiManager;
+    this.scanResultsReceiver = new ScanResultsReceiver(this, wifiManager, scanScheduler, handler);
+  }
+
+  @Override public void onReceive(final Context context, final Intent intent) {
+    final String action = intent.getAction();
+
+    if (WifiManager.SCAN_RESULTS_AVAILABLE_ACTION.equals(action)) {
+      // snapshot is published, when ScanResultsReceiver passes changed results
+      scanResultsReceiver.onReceive(context, intent);
+      return;
+    }
+
+    if (WifiManager.WIFI_STATE_CHANGED_ACTION.equals(action)) {
+      setWifiState(WifiState.fromState(
+          intent.getIntExtra(WifiManager.EXTRA_WIFI_STATE, WifiManager.WIFI_STATE_UNKNOWN)));
+    } else if (WifiManager.SUPPLICANT_STATE_CHANGED_ACTION.equals(action)) {
+      final SupplicantState state = intent.getParcelableExtra(WifiManager.EXTRA_NEW_STATE);
+      if (state != null && SupplicantState.isValidState(state)) {
+        setSupplicantState(state);
+        if (state == SupplicantState.COMPLETED) {
+          setWifiInfo(ReactiveWifi.getConnectionInfo(wifiManager));
+        } else if (state == SupplicantState.DISCONNECTED) {
+          setWifiInfo(null);
+        }
+      }
+    } else if (WifiManager.RSSI_CHANGED_ACTION.equals(action)) {
+      int newRssi = intent.getIntExtra(WifiManager.EXTRA_NEW_RSSI, SignalLevelReceiver.UNKNOWN);
+      if (newRssi == SignalLevelReceiver.UNKNOWN) {
+        newRssi = ReactiveWifi.getConnectionInfo(wifiManager).getRssi();
+      }
+      setRssi(newRssi);
+      scanResultsReceiver.onReceive(context, intent);
+    }
+
+    publish(action);
+  }
+
+  @Override public void onNext(final WifiScanResults wifiScanResults) {
+    scanResults = wifiScanResults;
+    changed |= WifiSnapshot.SCAN_RESULTS;
+    publish(WifiManager.SCAN_RESULTS_AVAILABLE_ACTION);
+  }
+
+  @Override public void onError(final Throwable error) {
+    listener.onError(error);
+  }
+
+  /**
+   * Requests the first scan, which is retried when refused by ScanScheduler
+   */
+  void start() {
+    scanResultsReceiver.start();
+  }
+
+  /**
+   * Stops reading scan results and retrying scans, which were scheduled before the receiver
+   * was unsubscribed
+   */
+  void cancel() {
+    scanResultsReceiver.cancel();
+  }
+
+  private void publish(final String action) {
+    if (!emitted) {
+      readMissingParts();
+      emitted = true;
+      changed = WifiSnapshot.ALL;
+    }
+
+    if (changed == 0) {
+      ReactiveWifi.getMetrics().onDuplicateSkipped(action);
+      return;
+    }
+
+    final WifiSnapshot snapshot = new WifiSnapshot(wifiState, supplicantState, rssi, signalLevel,
+        wifiInfo, scanResults, changed, SystemClock.elapsedRealtime());
+    changed = 0;
+    ReactiveWifi.getMetrics().onEmission(action);
+    listener.onNext(snapshot);
+  }
+
+  private void readMissingParts() {
+    if (wifiState == null) {
+      setWifiState(WifiState.fromState(wifiManager.getWifiState()));
+    }
+    if (supplicantState == null || rssi == SignalLevelReceiver.UNKNOWN) {
+      final WifiInfo currentWifiInfo = ReactiveWifi.getConnectionInfo(wifiManager);
+      if (supplicantState == null) {
+        setSupplicantState(currentWifiInfo.getSupplicantState());
+        if (supplicantState == SupplicantState.COMPLETED) {
+          setWifiInfo(currentWifiInfo);
+        }
+      }
+      if (rssi == SignalLevelReceiver.UNKNOWN) {
+        setRssi(currentWifiInfo.getRssi());
+      }
+    }
+  }
+
+  private void setWifiState(final WifiState state) {
+    if (state != wifiState) {
+      wifiState = state;
+      changed |= WifiSnapshot.WIFI_STATE;
+    }
+  }
+
+  private void setSupplicantState(final SupplicantState state) {
+    if (state != supplicantState) {
+      supplicantState = state;
+      changed |= WifiSnapshot.SUPPLICANT_STATE;
+    }
+  }
+
+  private void setRssi(final int newRssi) {
+    if (newRssi == rssi) {
+      return;
+    }
+    rssi = newRssi;
+    changed |= WifiSnapshot.RSSI;
+
+    final WifiSignalLevel newSignalLevel = WifiSignalLevel.fromLevel(
+        WifiListeners.WIFI_SIGNAL_LEVEL_QUANTIZER.quantize(newRssi));
+    if (newSignalLevel != signalLevel) {
+      signalLevel = newSignalLevel;
+      changed |= WifiSnapshot.SIGNAL_LEVEL;
+    }
+  }
+
+  private void setWifiInfo(final WifiInfo newWifiInfo) {
+    final String bssid = wifiInfo == null ? null : wifiInfo.getBSSID();
+    final String newBssid = newWifiInfo == null ? null : newWifiInfo.getBSSID();
+    if ((wifiInfo == null) != (newWifiInfo == null)
+        || (bssid == null ? newBssid != null : !bssid.equals(newBssid))) {
+      changed |= WifiSnapshot.ACCESS_POINT;
+    }
+    wifiInfo = newWifiInfo;
+    if (newWifiInfo != null) {
+      setRssi(newWifiInfo.getRssi());
+    }
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivewifi;
+
+import android.content.Intent;
+import android.net.wifi.SupplicantState;
+import android.net.wifi.WifiManager;
+import android.os.Parcelable;
+
+/**
+ * WifiTraceEvent is a single WiFi broadcast recorded in a trace.
+ * Scan results broadcasts carry scan results read right after the broadcast.
+ */
+public final class WifiTraceEvent {
+  public final long timestamp;
+  public final String action;
+  public final int value;
+  public final SupplicantState supplicantState;
+  public final WifiScanSnapshot scan;
+
+  WifiTraceEvent(final long timestamp, final String action, final int value,
+      final SupplicantState supplicantState, final WifiScanSnapshot scan) {
+    this.timestamp = timestamp;
+    this.action = action;
+    this.value = value;
+    this.supplicantState = supplicantState;
+    this.scan = scan;
+  }
+
+  /**
+   * Creates event of RSSI_CHANGED_ACTION broadcast
+   *
+   * @param timestamp of the broadcast in nanoseconds
+   * @param rssi of the current connection in dBm
+   * @return WifiTraceEvent with RSSI as a value
+   */
+  public static WifiTraceEvent rssiChanged(final long timestamp, final int rssi) {
+    return new WifiTraceEvent(timestamp, WifiManager.RSSI_CHANGED_ACTION, rssi, null, null);
+  }
+
+  /**
+   * Creates event of SCAN_RESULTS_AVAILABLE_ACTION broadcast
+   *
+   * @param timestamp of the broadcast in nanoseconds
+   * @param resultsUpdated true if scan succeeded and results were updated
+   * @param scan results read after the broadcast
+   * @return WifiTraceEvent with 1 as a value if results were updated, 0 otherwise
+   */
+  public static WifiTraceEvent scanResultsAvailable(final long timestamp,
+      final boolean resultsUpdated, final WifiScanSnapshot scan) {
+    return new WifiTraceEvent(timestamp, WifiManager.SCAN_RESULTS_AVAILABLE_ACTION,
+        resultsUpdated ? 1 : 0, null, scan);
+  }
+
+  /**
+   * Creates event of SUPPLICANT_STATE_CHANGED_ACTION broadcast
+   *
+   * @param timestamp of the broadcast in nanoseconds
+   * @param supplicantState new state of the supplicant
+   * @return WifiTraceEvent with supplicant state
+   */
+  public static WifiTraceEvent supplicantStateChanged(final long timestamp,
+      final SupplicantState supplicantState) {
+    return new WifiTraceEvent(timestamp, WifiManager.SUPPLICANT_STATE_CHANGED_ACTION, 0,
+        supplicantState, null);
+  }
+
+  /**
+   * Creates event of WIFI_STATE_CHANGED_ACTION broadcast
+   *
+   * @param timestamp of the broadcast in nanoseconds
+   * @param wifiState one of WifiManager.WIFI_STATE_* constants
+   * @return WifiTraceEvent with WiFi state as a value
+   */
+  public static WifiTraceEvent wifiStateChanged(final long timestamp, final int wifiState) {
+    return new WifiTraceEvent(timestamp, WifiManager.WIFI_STATE_CHANGED_ACTION, wifiState, null,
+        null);
+  }
+
+  /**
+   * Creates broadcast intent, which can be delivered to BroadcastReceivers during replay
+   *
+   * @return Intent with action and extras of the recorded broadcast
+   */
+  public Intent toIntent() {
+    final Intent intent = new Intent(action);
+    switch (action) {
+      case WifiManager.RSSI_CHANGED_ACTION:
+        intent.putExtra(WifiManager.EXTRA_NEW_RSSI, value);
+        break;
+      case WifiManager.SCAN_RESULTS_AVAILABLE_ACTION:
+        intent.putExtra(WifiManager.EXTRA_RESULTS_UPDATED, value != 0);
+        break;
+      case WifiManager.SUPPLICANT_STATE_CHANGED_ACTION:
+        intent.putExtra(WifiManager.EXTRA_NEW_STATE, (Parcelable) supplicantState);
+        break;
+      case WifiManager.WIFI_STATE_CHANGED_ACTION:
+        intent.putExtra(WifiManager.EXTRA_WIFI_STATE, value);
+        break;
+      default:
+        break;
+    }
+    return intent;
+  }
+
+  @Override public String toString() {
+    return "WifiTraceEvent{"
+        + "timestamp=" + timestamp
+        + ", action='" + action + '\''
+        + ", value=" + value
+        + ", supplicantState=" + supplicantState
+        + ", scan=" + scan
+        + '}';
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivewifi;
+
+import android.net.wifi.SupplicantState;
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * WifiTraceReader reads WifiTraceEvents from a trace written with WifiTraceWriter
+ */
+public final class WifiTraceReader implements Closeable {
+  private final DataInputStream input;
+
+  /**
+   * Creates reader and reads header of the trace
+   *
+   * @param inputStream stream, which will be closed together with the reader
+   * @throws IOException when header can't be read or stream doesn't contain a trace
+   */
+  public WifiTraceReader(final InputStream inputStream) throws IOException {
+    this.input = new DataInputStream(new BufferedInputStream(inputStream));
+    if (input.readInt() != WifiTraceWriter.MAGIC) {
+      throw new IOException("stream doesn't contain WiFi trace");
+    }
+    final int version = input.readInt();
+    if (version != WifiTraceWriter.VERSION) {
+      throw new IOException("version " + version + " of WiFi trace is not supported");
+    }
+  }
+
+  /**
+   * Reads all events from the trace and closes the stream
+   *
+   * @param inputStream stream containing trace
+   * @return list of events in order of recording
+   * @throws IOException when trace can't be read
+   */
+  public static List<WifiTraceEvent> readAll(final InputStream inputStream) throws IOException {
+    final List<WifiTraceEvent> events = new ArrayList<>();
+    try (WifiTraceReader reader = new WifiTraceReader(inputStream)) {
+      WifiTraceEvent event;
+      while ((event = reader.read()) != null) {
+        events.add(event);
+      }
+    }
+    return events;
+  }
+
+  /**
+   * Reads the next event from the trace
+   *
+   * @return event or null if there are no more events
+   * @throws IOException when event can't be read
+   */
+  public WifiTraceEvent read() throws IOException {
+    final long timestamp;
+    try {
+      timestamp = input.readLong();
+    } catch (EOFException exception) {
+      return null;
+    }
+
+    final byte type = input.readByte();
+    switch (type) {
+      case WifiTraceWriter.TYPE_RSSI:
+        return WifiTraceEvent.rssiChanged(timestamp, input.readInt());
+      case WifiTraceWriter.TYPE_SCAN_RESULTS:
+        final boolean resultsUpdated = input.readInt() != 0;
+        return WifiTraceEvent.scanResultsAvailable(timestamp, resultsUpdated, readScan());
+      case WifiTraceWriter.TYPE_SUPPLICANT_STATE:
+        return WifiTraceEvent.supplicantStateChanged(timestamp, readSupplicantState());
+      case WifiTraceWriter.TYPE_WIFI_STATE:
+        return WifiTraceEvent.wifiStateChanged(timestamp, input.readInt());
+      default:
+        throw new IOException("unknown type " + type + " of WiFi trace event");
+    }
+  }
+
+  private SupplicantState readSupplicantState() throws IOException {
+    final String name = input.readUTF();
+    try {
+      return SupplicantState.valueOf(name);
+    } catch (IllegalArgumentException exception) {
+      throw new IOException("unknown supplicant state " + name, exception);
+    }
+  }
+
+  private WifiScanSnapshot readScan() throws IOException {
+    final int statusIndex = input.readByte();
+    final int size = input.readInt();
+    if (statusIndex < 0 || statusIndex >= ScanStatus.values().length || size < 0) {
+      throw new IOException("WiFi trace is corrupted");
+    }
+    final ScanStatus status = ScanStatus.values()[statusIndex];
+    final long[] bssids = new long[size];
+    final String[] ssids = new String[size];
+    final int[] rssis = new int[size];
+    final int[] frequencies = new int[size];
+    final long[] timestamps = new long[size];
+    for (int i = 0; i < size; i++) {
+      bssids[i] = input.readLong();
+    }
+    for (int i = 0; i < size; i++) {
+      ssids[i] = input.readBoolean() ? input.readUTF() : null;
+    }
+    for (int i = 0; i < size; i++) {
+      rssis[i] = input.readInt();
+    }
+    for (int i = 0; i < size; i++) {
+      frequencies[i] = input.readInt();
+    }
+    for (int i = 0; i < size; i++) {
+      timestamps[i] = input.readLong();
+    }
+    return new WifiScanSnapshot(status, bssids, ssids, rssis, frequencies, timestamps);
+  }
+
+  @Override public void close() throws IOException {
+    input.close();
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivewifi;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WifiTraceReplayer delivers recorded or synthetic WifiTraceEvents to a target
+ * keeping intervals between them divided by the speed. Events are delivered on the calling
+ * thread, so the replay can be run in tests under Robolectric or on a plain JVM.
+ */
+public final class WifiTraceReplayer {
+  public static final double MAX_SPEED = Double.POSITIVE_INFINITY;
+
+  private final List<WifiTraceEvent> events;
+  private final double speed;
+
+  /**
+   * Target, which receives replayed events. It can e.g. update scan results and connection
+   * info returned by the fake WifiManager and deliver event's intent to receivers.
+   */
+  public interface Target {
+    void deliver(WifiTraceEvent event) throws Exception;
+  }
+
+  /**
+   * Creates replayer
+   *
+   * @param events to be replayed in order of their timestamps
+   * @param speed 1 for replay in real time, greater values accelerate replay
+   * and MAX_SPEED delivers events without waiting
+   */
+  public WifiTraceReplayer(final List<WifiTraceEvent> events, final double speed) {
+    if (!(speed > 0)) {
+      throw new IllegalArgumentException("speed has to be greater than zero");
+    }
+    this.events = new ArrayList<>(events);
+    this.speed = speed;
+  }
+
+  /**
+   * Creates target delivering intent of each event to given receivers
+   *
+   * @param context passed to the receivers
+   * @param receivers which should get intents
+   * @return target delivering intents
+   */
+  public static Target toReceivers(final Context context, final BroadcastReceiver... receivers) {
+    return new Target() {
+      @Override public void deliver(final WifiTraceEvent event) {
+        final Intent intent = event.toIntent();
+        for (BroadcastReceiver receiver : receivers) {
+          receiver.onReceive(context, intent);
+        }
+      }
+    };
+  }
+
+  /**
+   * Replays all events on the calling thread
+   *
+   * @param target receiving events
+   * @return duration of the replay in nanoseconds
+   * @throws Exception thrown by the target or InterruptedException when thread was interrupted
+   */
+  public long replay(final Target target) throws Exception {
+    final long start = System.nanoTime();
+    if (events.isEmpty()) {
+      return 0;
+    }
+
+    final long firstTimestamp = events.get(0).timestamp;
+    for (WifiTraceEvent event : events) {
+      if (speed != MAX_SPEED) {
+        final long due = start + (long) ((event.timestamp - firstTimestamp) / speed);
+        final long delay = due - System.nanoTime();
+        if (delay > 0) {
+          TimeUnit.NANOSECONDS.sleep(delay);
+        }
+      }
+      target.deliver(event);
+    }
+
+    return System.nanoTime() - start;
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivewifi;
+
+import android.net.wifi.WifiManager;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * WifiTraceWriter writes WifiTraceEvents into a binary trace, which can be read
+ * with WifiTraceReader. Trace starts with a header followed by events, each of them starting
+ * with its timestamp and type. Scan results are written column by column like in
+ * WifiScanSnapshot.
+ */
+public final class WifiTraceWriter implements Closeable {
+  static final int MAGIC = 0x52575452;
+  static final int VERSION = 1;
+  static final byte TYPE_RSSI = 1;
+  static final byte TYPE_SCAN_RESULTS = 2;
+  static final byte TYPE_SUPPLICANT_STATE = 3;
+  static final byte TYPE_WIFI_STATE = 4;
+
+  private final DataOutputStream output;
+
+  /**
+   * Creates writer and writes header of the trace
+   *
+   * @param outputStream stream, which will be closed together with the writer
+   * @throws IOException when header can't be written
+   */
+  public WifiTraceWriter(final OutputStream outputStream) throws IOException {
+    this.output = new DataOutputStream(new BufferedOutputStream(outputStream));
+    output.writeInt(MAGIC);
+    output.writeInt(VERSION);
+  }
+
+  /**
+   * Writes event into the trace
+   *
+   * @param event to be written
+   * @throws IOException when event can't be written
+   */
+  public void write(final WifiTraceEvent event) throws IOException {
+    output.writeLong(event.timestamp);
+    switch (event.action) {
+      case WifiManager.RSSI_CHANGED_ACTION:
+        output.writeByte(TYPE_RSSI);
+        output.writeInt(event.value);
+        break;
+      case WifiManager.SCAN_RESULTS_AVAILABLE_ACTION:
+        output.writeByte(TYPE_SCAN_RESULTS);
+        output.writeInt(event.value);
+        writeScan(event.scan);
+        break;
+      case WifiManager.SUPPLICANT_STATE_CHANGED_ACTION:
+        output.writeByte(TYPE_SUPPLICANT_STATE);
+        output.writeUTF(event.supplicantState.name());
+        break;
+      case WifiManager.WIFI_STATE_CHANGED_ACTION:
+        output.writeByte(TYPE_WIFI_STATE);
+        output.writeInt(event.value);
+        break;
+      default:
+        throw new IllegalArgumentException("action " + event.action + " is not supported");
+    }
+  }
+
+  private void writeScan(final WifiScanSnapshot scan) throws IOException {
+    output.writeByte(scan.status.ordinal());
+    output.writeInt(scan.size());
+    for (int i = 0; i < scan.size(); i++) {
+      output.writeLong(scan.bssids[i]);
+    }
+    for (int i = 0; i < scan.size(); i++) {
+      final String ssid = scan.ssids[i];
+      output.writeBoolean(ssid != null);
+      if (ssid != null) {
+        output.writeUTF(ssid);
+      }
+    }
+    for (int i = 0; i < scan.size(); i++) {
+      output.writeInt(scan.rssis[i]);
+    }
+    for (int i = 0; i < scan.size(); i++) {
+      output.writeInt(scan.frequencies[i]);
+    }
+    for (int i = 0; i < scan.size(); i++) {
+      output.writeLong(scan.timestamps[i]);
+    }
+  }
+
+  @Override public void close() throws IOException {
+    output.close();
+  }
+}
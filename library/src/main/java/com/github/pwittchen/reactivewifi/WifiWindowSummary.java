@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2020 Piotr Wittchen
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.pwittchen.reactivewifi;
+
+/**
+ * WifiWindowSummary contains statistics of each Access Point seen in a time window:
+ * min, max and mean RSSI, number of sightings and timestamps of the first and the last sighting.
+ * Values are kept in parallel arrays of primitives. Timestamps are expressed in microseconds
+ * since boot, like timestamps of WiFi scan results.
+ */
+public final class WifiWindowSummary {
+  public final long windowStart;
+  public final long windowEnd;
+  private final long[] bssids;
+  private final int[] minRssis;
+  private final int[] maxRssis;
+  private final double[] meanRssis;
+  private final int[] sightings;
+  private final long[] firstSeen;
+  private final long[] lastSeen;
+
+  WifiWindowSummary(final long windowStart, final long windowEnd, final long[] bssids,
+      final int[] minRssis, final int[] maxRssis, final double[] meanRssis,
+      final int[] sightings, final long[] firstSeen, final long[] lastSeen) {
+    this.windowStart = windowStart;
+    this.windowEnd = windowEnd;
+    this.bssids = bssids;
+    this.minRssis = minRssis;
+    this.maxRssis = maxRssis;
+    this.meanRssis = meanRssis;
+    this.sightings = sightings;
+    this.firstSeen = firstSeen;
+    this.lastSeen = lastSeen;
+  }
+
+  /**
+   * Returns number of Access Points seen in the window
+   *
+   * @return number of Access Points
+   */
+  public int size() {
+    return bssids.length;
+  }
+
+  /**
+   * Returns BSSID of the Access Point
+   *
+   * @param index of the Access Point
+   * @return BSSID packed into long
+   */
+  public long getBssid(final int index) {
+    return bssids[index];
+  }
+
+  /**
+   * Returns min RSSI of the Access Point in the window
+   *
+   * @param index of the Access Point
+   * @return min RSSI in dBm
+   */
+  public int getMinRssi(final int index) {
+    return minRssis[index];
+  }
+
+  /**
+   * Returns max RSSI of the Access Point in the window
+   *
+   * @param index of the Access Point
+   * @return max RSSI in dBm
+   */
+  public int getMaxRssi(final int index) {
+    return maxRssis[index];
+  }
+
+  /**
+   * Returns mean RSSI of the Access Point in the window
+   *
+   * @param index of the Access Point
+   * @return mean RSSI in dBm
+   */
+  public double getMeanRssi(final int index) {
+    return meanRssis[index];
+  }
+
+  /**
+   * Returns how many times the Access Point was seen in the window
+   *
+   * @param index of the Access Point
+   * @return number of sightings
+   */
+  public int getSightings(final int index) {
+    return sightings[index];
+  }
+
+  /**
+   * Returns timestamp of the first sighting of the Access Point in the window
+   *
+   * @param index of the Access Point
+   * @return timestamp in microseconds since boot
+   */
+  public long getFirstSeen(final int index) {
+    return firstSeen[index];
+  }
+
+  /**
+   * Returns timestamp of the last sighting of the Access Point in the window
+   *
+   * @param index of the Access Point
+   * @return timestamp in microseconds since boot
+   */
+  public long getLastSeen(final int index) {
+    return lastSeen[index];
+  }
+
+  @Override public String toString() {
+    return "WifiWindowSummary{"
+        + "windowStart=" + windowStart
+        + ", windowEnd=" + windowEnd
+        + ", size=" + size()
+        + '}';
+  }
+}